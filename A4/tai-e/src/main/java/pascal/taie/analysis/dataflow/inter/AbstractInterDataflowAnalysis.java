@@ -117,11 +117,49 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     protected abstract Fact transferReturnEdge(ReturnEdge<Node> edge, Fact returnOut);
     // ----------------------------------------------------------------
 
+    /**
+     * Dispatches {@link ICFGEdge} to specific in-place edge transfer
+     * functions according to the concrete type of {@link ICFGEdge}.
+     */
+    @Override
+    public void transferEdgeInto(ICFGEdge<Node> edge, Fact out, Fact target) {
+        if (edge instanceof NormalEdge) {
+            transferNormalEdgeInto((NormalEdge<Node>) edge, out, target);
+        } else if (edge instanceof CallToReturnEdge) {
+            transferCallToReturnEdgeInto((CallToReturnEdge<Node>) edge, out, target);
+        } else if (edge instanceof CallEdge) {
+            transferCallEdgeInto((CallEdge<Node>) edge, out, target);
+        } else {
+            transferReturnEdgeInto((ReturnEdge<Node>) edge, out, target);
+        }
+    }
+
+    // ---------- in-place transfer functions for specific ICFG edges ----------
+    // The analyses can overwrite these methods to avoid creating
+    // intermediate facts.
+    protected void transferNormalEdgeInto(NormalEdge<Node> edge, Fact out, Fact target) {
+        meetInto(transferNormalEdge(edge, out), target);
+    }
+
+    protected void transferCallToReturnEdgeInto(CallToReturnEdge<Node> edge, Fact out, Fact target) {
+        meetInto(transferCallToReturnEdge(edge, out), target);
+    }
+
+    protected void transferCallEdgeInto(CallEdge<Node> edge, Fact callSiteOut, Fact target) {
+        meetInto(transferCallEdge(edge, callSiteOut), target);
+    }
+
+    protected void transferReturnEdgeInto(ReturnEdge<Node> edge, Fact returnOut, Fact target) {
+        meetInto(transferReturnEdge(edge, returnOut), target);
+    }
+    // -------------------------------------------------------------------------
+
     @Override
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        solver = new InterSolver<>(this, icfg,
+                getOptions().getBooleanOrDefault("parallel", false));
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
         return result;
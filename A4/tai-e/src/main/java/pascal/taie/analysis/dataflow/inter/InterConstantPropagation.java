@@ -22,10 +22,12 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import pascal.taie.World;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
@@ -55,6 +57,16 @@ public class InterConstantPropagation extends
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
     }
 
+    @Override
+    public Object analyze() {
+        if (getOptions().getBooleanOrDefault("summary", false)) {
+            // reuse per-method summaries instead of solving on the ICFG
+            return new LinearConstantSolver(
+                    World.get().getResult(CallGraphBuilder.ID)).solve();
+        }
+        return super.analyze();
+    }
+
     @Override
     public boolean isForward() {
         return cp.isForward();
@@ -76,6 +88,17 @@ public class InterConstantPropagation extends
         cp.meetInto(fact, target);
     }
 
+    /**
+     * A callee affects the facts of its callers only via its return
+     * values, thus it also needs to be analyzed when its call site
+     * receives the result, even if no constant is passed to it.
+     */
+    @Override
+    public boolean needsCallee(CallEdge<Stmt> edge, CPFact fact) {
+        return !fact.keySet().isEmpty() ||
+                ((Invoke) edge.getSource()).getResult() != null;
+    }
+
     @Override
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - finish me
@@ -138,4 +161,41 @@ public class InterConstantPropagation extends
         System.out.println(edge + ":" + returnOut + "->" + cpFact);
         return cpFact;
     }
+
+    @Override
+    protected void transferNormalEdgeInto(NormalEdge<Stmt> edge, CPFact out, CPFact target) {
+        cp.meetInto(out, target);
+    }
+
+    @Override
+    protected void transferCallToReturnEdgeInto(CallToReturnEdge<Stmt> edge, CPFact out, CPFact target) {
+        Var def = ((Invoke) edge.getSource()).getResult();
+        out.forEach((var, value) -> {
+            if (!var.equals(def)) {
+                target.update(var, cp.meetValue(target.get(var), value));
+            }
+        });
+    }
+
+    @Override
+    protected void transferCallEdgeInto(CallEdge<Stmt> edge, CPFact callSiteOut, CPFact target) {
+        var params = edge.getCallee().getIR().getParams();
+        var args = ((Invoke) edge.getSource()).getInvokeExp().getArgs();
+        for (int i = 0; i < params.size(); i++) {
+            Var param = params.get(i);
+            target.update(param, cp.meetValue(target.get(param), callSiteOut.get(args.get(i))));
+        }
+    }
+
+    @Override
+    protected void transferReturnEdgeInto(ReturnEdge<Stmt> edge, CPFact returnOut, CPFact target) {
+        Var rcv = ((Invoke) edge.getCallSite()).getResult();
+        if (rcv != null) {
+            Value value = target.get(rcv);
+            for (Var var : edge.getReturnVars()) {
+                value = cp.meetValue(value, returnOut.get(var));
+            }
+            target.update(rcv, value);
+        }
+    }
 }
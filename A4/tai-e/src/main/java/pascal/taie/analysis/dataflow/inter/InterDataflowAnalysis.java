@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 
 /**
@@ -71,4 +72,35 @@ public interface InterDataflowAnalysis<Node, Fact> {
      * @return the result of edge transfer function.
      */
     Fact transferEdge(ICFGEdge<Node> edge, Fact out);
+
+    /**
+     * Edge Transfer function which meets the result of the transfer
+     * directly into the target fact, so that the solver does not need
+     * to allocate an intermediate fact for every edge visit.
+     * By default, it is equivalent to
+     * {@code meetInto(transferEdge(edge, out), target)}.
+     *
+     * @param edge   the ICFG edge that the transfer function is applied on.
+     * @param out    the OUT fact of source node of the edge.
+     * @param target the IN fact of target node of the edge.
+     */
+    default void transferEdgeInto(ICFGEdge<Node> edge, Fact out, Fact target) {
+        meetInto(transferEdge(edge, out), target);
+    }
+
+    /**
+     * Decides whether the callee of a call edge needs to be analyzed
+     * as soon as the call site is reached. The solver on on-demand ICFG
+     * defers reaching (and thus expanding) the callees for which this
+     * method returns false, until the other nodes reach a fixed point.
+     * By default, a callee
+     * is analyzed when the fact on its call edge is not bottom,
+     * i.e., differs from the initial fact.
+     *
+     * @param edge the call edge.
+     * @param fact the result of transferring the call edge.
+     */
+    default boolean needsCallee(CallEdge<Node> edge, Fact fact) {
+        return !fact.equals(newInitialFact());
+    }
 }
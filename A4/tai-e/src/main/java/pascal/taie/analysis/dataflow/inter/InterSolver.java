@@ -23,10 +23,27 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
-import pascal.taie.util.collection.SetQueue;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.Graph;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.TopoSorter;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -42,28 +59,101 @@ class InterSolver<Method, Node, Fact> {
 
     private final ICFG<Method, Node> icfg;
 
+    /**
+     * Whether the ICFG is built on demand. If so, the solver starts from
+     * the entry nodes and creates the facts of other nodes when they
+     * are reached.
+     */
+    private final boolean onDemand;
+
     private DataflowResult<Node, Fact> result;
 
     private Queue<Node> workList;
 
+    /**
+     * Nodes currently in {@link #workList}, used to avoid duplicates.
+     */
+    private Set<Node> inWorkList;
+
+    /**
+     * Priorities of the nodes; the node with the smallest priority
+     * is processed first.
+     */
+    private Map<Node, Integer> priorities;
+
+    /**
+     * Callee entries whose call edges carry no fact that matters to
+     * the callees. In on-demand mode, such callees are not reached
+     * until the other nodes reach a fixed point.
+     */
+    private List<Node> deferredEntries;
+
+    /**
+     * Whether to solve independent parts of the ICFG in parallel.
+     */
+    private final boolean parallel;
+
+    /**
+     * Methods of the ICFG and their nodes in reverse postorder.
+     */
+    private Map<Method, List<Node>> methodNodes;
+
+    private MergedSCCGraph<Method> sccGraph;
+
+    /**
+     * Strongly connected components of the call graph
+     * in topological order.
+     */
+    private List<MergedNode<Method>> sccs;
+
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
+        this(analysis, icfg, false);
+    }
+
+    /**
+     * @param parallel whether to solve the SCCs of the call graph
+     *                 in parallel. This is ignored for on-demand ICFGs,
+     *                 as the SCCs are unknown before solving.
+     */
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                ICFG<Method, Node> icfg, boolean parallel) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.onDemand = icfg instanceof LazyICFG;
+        this.parallel = parallel && !onDemand;
     }
 
     DataflowResult<Node, Fact> solve() {
         result = new DataflowResult<>();
         initialize();
-        doSolve();
+        if (!onDemand) {
+            buildCallGraph();
+            priorities = computePriorities();
+        }
+        if (parallel) {
+            doSolveParallel();
+        } else {
+            doSolve();
+        }
+        if (onDemand) {
+            // nodes which are unreachable in the expanded methods
+            // hold initial facts
+            for (Node node : icfg) {
+                getInFact(node);
+                getOutFact(node);
+            }
+        }
         return result;
     }
 
     private void initialize() {
         // TODO - finish me
-        for (Node node : icfg) {
-            result.setOutFact(node, analysis.newInitialFact());
-            result.setInFact(node, analysis.newInitialFact());
+        if (!onDemand) {
+            for (Node node : icfg) {
+                result.setOutFact(node, analysis.newInitialFact());
+                result.setInFact(node, analysis.newInitialFact());
+            }
         }
         for (Method method : icfg.entryMethods().toList()){
             Node node = icfg.getEntryOf(method);
@@ -74,19 +164,302 @@ class InterSolver<Method, Node, Fact> {
 
     private void doSolve() {
         // TODO - finish me
-        workList = new LinkedList<>(); // queue
-        for (Node node : icfg){
-            workList.offer(node);
+        if (onDemand) {
+            priorities = Maps.newMap();
+            deferredEntries = new ArrayList<>();
+        }
+        workList = new PriorityQueue<>(
+                Comparator.comparingInt(priorities::get));
+        inWorkList = Sets.newSet();
+        if (onDemand) {
+            icfg.entryMethods().forEach(m -> addToWorkList(icfg.getEntryOf(m)));
+        } else {
+            for (Node node : icfg){
+                addToWorkList(node);
+            }
+        }
+        // in on-demand mode, each node propagates to its successors
+        // at least once, i.e., when it is reached for the first time
+        Set<Node> reached = Sets.newSet();
+        do {
+            while (!workList.isEmpty()) {
+                Node node = workList.poll();
+                inWorkList.remove(node);
+                System.out.println("Start Process:" + node.toString());
+                for (var edge : icfg.getInEdgesOf(node)) {
+                    analysis.transferEdgeInto(edge, getOutFact(edge.getSource()), getInFact(node));
+                }
+                if (analysis.transferNode(node, getInFact(node), getOutFact(node))
+                        || (onDemand && reached.add(node))) {
+                    if (onDemand) {
+                        propagateOnDemand(node);
+                    } else {
+                        icfg.getSuccsOf(node).forEach(this::addToWorkList);
+                    }
+                }
+            }
+        } while (onDemand && reachDeferredEntries(reached));
+    }
+
+    /**
+     * Adds the successors of given node to the work-list, except the
+     * callee entries whose call edges carry no fact that matters to
+     * the callees, which are deferred, so that such callees are not
+     * expanded by the on-demand ICFG before the facts of their callers
+     * reach a fixed point.
+     */
+    private void propagateOnDemand(Node node) {
+        for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(node)) {
+            if (edge instanceof CallEdge<Node> callEdge &&
+                    !analysis.needsCallee(callEdge,
+                            analysis.transferEdge(callEdge, getOutFact(node)))) {
+                deferredEntries.add(edge.getTarget());
+            } else {
+                addToWorkList(edge.getTarget());
+            }
+        }
+    }
+
+    /**
+     * Adds the deferred callee entries which have not been reached to
+     * the work-list. The local facts of such callees, e.g., constants
+     * assigned in their bodies, are still part of the result, thus every
+     * reachable method is analyzed eventually, but each deferred callee
+     * is analyzed once with the converged facts of its callers.
+     *
+     * @return true if any deferred callee entry is added.
+     */
+    private boolean reachDeferredEntries(Set<Node> reached) {
+        List<Node> entries = deferredEntries;
+        deferredEntries = new ArrayList<>();
+        entries.stream()
+                .filter(entry -> !reached.contains(entry))
+                .forEach(this::addToWorkList);
+        return !workList.isEmpty();
+    }
+
+    private void addToWorkList(Node node) {
+        if (inWorkList.add(node)) {
+            // nodes of the on-demand ICFG are ordered by discovery
+            priorities.putIfAbsent(node, priorities.size());
+            workList.add(node);
+        }
+    }
+
+    /**
+     * Solves the SCCs of the call graph in waves. The SCCs in a wave
+     * have no call edges between each other, thus they are solved
+     * concurrently; the facts flow between SCCs only along call and
+     * return edges, which are propagated by the pending nodes of
+     * each SCC. The waves are repeated until no SCC has pending nodes,
+     * as the return edges flow from later waves to earlier ones.
+     */
+    private void doSolveParallel() {
+        // assign each SCC a wave, i.e., the length of the longest
+        // path from the roots of the SCC graph to it
+        Map<MergedNode<Method>, Integer> waveOf = Maps.newMap();
+        List<List<Integer>> waves = new ArrayList<>();
+        for (int i = 0; i < sccs.size(); ++i) {
+            MergedNode<Method> scc = sccs.get(i);
+            int wave = 0;
+            for (MergedNode<Method> pred : sccGraph.getPredsOf(scc)) {
+                wave = Math.max(wave, waveOf.get(pred) + 1);
+            }
+            waveOf.put(scc, wave);
+            if (wave == waves.size()) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(wave).add(i);
+        }
+        Map<Method, Integer> sccOf = Maps.newMap();
+        List<Set<Node>> pending = new ArrayList<>(sccs.size());
+        for (int i = 0; i < sccs.size(); ++i) {
+            pending.add(Sets.newConcurrentSet());
+            for (Method method : sccs.get(i).getNodes()) {
+                sccOf.put(method, i);
+            }
+        }
+        for (Node node : icfg) {
+            pending.get(sccOf.get(icfg.getContainingMethodOf(node))).add(node);
         }
-        while (!workList.isEmpty()) {
-            Node node = workList.poll();
-            System.out.println("Start Process:" + node.toString());
+        boolean hasPending = true;
+        while (hasPending) {
+            for (List<Integer> wave : waves) {
+                wave.parallelStream()
+                        .filter(i -> !pending.get(i).isEmpty())
+                        .forEach(i -> solveSCC(i, sccOf, pending));
+            }
+            hasPending = pending.stream().anyMatch(p -> !p.isEmpty());
+        }
+    }
+
+    /**
+     * Solves the nodes of given SCC until they reach a fixed point,
+     * and adds the affected nodes in other SCCs to their pending nodes.
+     */
+    private void solveSCC(int scc, Map<Method, Integer> sccOf,
+                          List<Set<Node>> pending) {
+        Queue<Node> localWorkList = new PriorityQueue<>(
+                Comparator.comparingInt(priorities::get));
+        Set<Node> inLocalWorkList = Sets.newSet();
+        for (Node node : pending.get(scc)) {
+            pending.get(scc).remove(node);
+            if (inLocalWorkList.add(node)) {
+                localWorkList.add(node);
+            }
+        }
+        while (!localWorkList.isEmpty()) {
+            Node node = localWorkList.poll();
+            inLocalWorkList.remove(node);
+            Fact in = result.getInFact(node);
             for (var edge : icfg.getInEdgesOf(node)) {
-                analysis.meetInto(analysis.transferEdge(edge, result.getOutFact(edge.getSource())), result.getInFact(node));
+                analysis.transferEdgeInto(edge, result.getOutFact(edge.getSource()), in);
+            }
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                for (Node succ : icfg.getSuccsOf(node)) {
+                    int succSCC = sccOf.get(icfg.getContainingMethodOf(succ));
+                    if (succSCC != scc) {
+                        pending.get(succSCC).add(succ);
+                    } else if (inLocalWorkList.add(succ)) {
+                        localWorkList.add(succ);
+                    }
+                }
             }
-            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
-                workList.addAll(icfg.getSuccsOf(node));
+        }
+    }
+
+    /**
+     * Orders the nodes of the ICFG by a topological order over the
+     * strongly connected components of the call graph (callers first),
+     * and then by the reverse postorder of each method's nodes.
+     */
+    private Map<Node, Integer> computePriorities() {
+        Map<Node, Integer> result = Maps.newMap(icfg.getNumberOfNodes());
+        for (MergedNode<Method> scc : sccs) {
+            for (Method method : scc.getNodes()) {
+                methodNodes.get(method).forEach(node ->
+                        result.put(node, result.size()));
             }
         }
+        // nodes not reachable from method entries come last
+        for (Node node : icfg) {
+            result.putIfAbsent(node, result.size());
+        }
+        return result;
+    }
+
+    /**
+     * Recovers the call graph from the call edges of the ICFG, and
+     * computes {@link #methodNodes} and {@link #sccs}.
+     */
+    private void buildCallGraph() {
+        // collect methods, their nodes in reverse postorder, and call edges
+        methodNodes = new LinkedHashMap<>();
+        Map<Method, Set<Method>> callees = Maps.newMap();
+        List<Method> methods = new ArrayList<>(icfg.entryMethods().toList());
+        Iterator<Node> nodes = icfg.iterator();
+        while (!methods.isEmpty() || nodes.hasNext()) {
+            // methods which are not reachable from the entry methods
+            // in the ICFG are collected after the reachable ones
+            Method method = methods.isEmpty() ?
+                    icfg.getContainingMethodOf(nodes.next()) :
+                    methods.remove(methods.size() - 1);
+            if (methodNodes.containsKey(method)) {
+                continue;
+            }
+            List<Node> postOrder = new ArrayList<>();
+            Set<Method> methodCallees = Sets.newSet();
+            postOrder(icfg.getEntryOf(method), Sets.newSet(), postOrder);
+            for (Node node : postOrder) {
+                // callees without bodies in the ICFG have no call edges
+                for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(node)) {
+                    if (edge instanceof CallEdge) {
+                        methodCallees.add(icfg.getContainingMethodOf(edge.getTarget()));
+                    }
+                }
+            }
+            Collections.reverse(postOrder);
+            methodNodes.put(method, postOrder);
+            callees.put(method, methodCallees);
+            methods.addAll(methodCallees);
+        }
+        MultiMap<Method, Method> callers = Maps.newMultiMap();
+        callees.forEach((caller, methodCallees) ->
+                methodCallees.forEach(callee -> callers.put(callee, caller)));
+        Graph<Method> callGraph = new Graph<>() {
+            @Override
+            public boolean hasNode(Method node) {
+                return methodNodes.containsKey(node);
+            }
+
+            @Override
+            public boolean hasEdge(Method source, Method target) {
+                return callees.get(source).contains(target);
+            }
+
+            @Override
+            public Set<Method> getPredsOf(Method node) {
+                return callers.get(node);
+            }
+
+            @Override
+            public Set<Method> getSuccsOf(Method node) {
+                return callees.get(node);
+            }
+
+            @Override
+            public Set<Method> getNodes() {
+                return methodNodes.keySet();
+            }
+        };
+        sccGraph = new MergedSCCGraph<>(callGraph);
+        sccs = new TopoSorter<>(sccGraph).get();
+    }
+
+    /**
+     * Collects the nodes reachable from given node via intra-procedural
+     * edges in postorder.
+     */
+    private void postOrder(Node entry, Set<Node> visited, List<Node> result) {
+        // iterative DFS to avoid stack overflow on large methods
+        List<Node> stack = new ArrayList<>();
+        List<Iterator<ICFGEdge<Node>>> iters = new ArrayList<>();
+        visited.add(entry);
+        stack.add(entry);
+        iters.add(icfg.getOutEdgesOf(entry).iterator());
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            var iter = iters.get(top);
+            if (iter.hasNext()) {
+                ICFGEdge<Node> edge = iter.next();
+                Node succ = edge.getTarget();
+                if (!(edge instanceof CallEdge) && !(edge instanceof ReturnEdge)
+                        && visited.add(succ)) {
+                    stack.add(succ);
+                    iters.add(icfg.getOutEdgesOf(succ).iterator());
+                }
+            } else {
+                result.add(stack.remove(top));
+                iters.remove(top);
+            }
+        }
+    }
+
+    private Fact getInFact(Node node) {
+        Fact fact = result.getInFact(node);
+        if (fact == null) {
+            fact = analysis.newInitialFact();
+            result.setInFact(node, fact);
+        }
+        return fact;
+    }
+
+    private Fact getOutFact(Node node) {
+        Fact fact = result.getOutFact(node);
+        if (fact == null) {
+            fact = analysis.newInitialFact();
+            result.setOutFact(node, fact);
+        }
+        return fact;
     }
 }
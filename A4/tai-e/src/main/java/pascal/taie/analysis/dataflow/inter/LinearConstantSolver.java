@@ -0,0 +1,444 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation.canHoldInt;
+
+/**
+ * IDE-style solver of interprocedural constant propagation in
+ * the linear constant domain.
+ * <p>
+ * Phase 1 analyzes each method once per change of its callees' summaries,
+ * and computes the {@link LinearFunction jump functions} from the
+ * parameters of the method to its variables. The jump function of
+ * the return value is the summary of the method, which is instantiated
+ * at every call site of the method instead of re-analyzing its body.
+ * <p>
+ * Phase 2 propagates the values of parameters from entry methods to
+ * their callees, where the values from different call sites are merged
+ * as {@link InterSolver} does, and evaluates the jump functions with
+ * the values of the parameters. The variables whose jump functions are
+ * NAC, e.g., the results of non-linear operations on parameters, are
+ * evaluated on the values of their operands instead, so that such
+ * operations are still folded when the parameters are constants.
+ * Different from {@link InterSolver}, the results of the calls with
+ * linear summaries are computed for each call site separately,
+ * i.e., the calling contexts are not merged.
+ */
+class LinearConstantSolver {
+
+    private final CallGraph<Invoke, JMethod> callGraph;
+
+    /**
+     * Jump functions of the variables before each statement.
+     */
+    private final Map<Stmt, Map<Var, LinearFunction>> inFacts = Maps.newMap();
+
+    /**
+     * Jump functions of the variables after each statement.
+     */
+    private final Map<Stmt, Map<Var, LinearFunction>> outFacts = Maps.newMap();
+
+    /**
+     * Jump functions of the return values of the methods.
+     */
+    private final Map<JMethod, LinearFunction> summaries = Maps.newMap();
+
+    /**
+     * Values of the parameters of the methods.
+     */
+    private final Map<JMethod, List<Value>> paramValues = Maps.newMap();
+
+    /**
+     * Values of the return variables of the methods.
+     */
+    private final Map<JMethod, Value> returnValues = Maps.newMap();
+
+    /**
+     * Values of the variables before each statement.
+     */
+    private final Map<Stmt, CPFact> inValues = Maps.newMap();
+
+    /**
+     * Values of the variables after each statement.
+     */
+    private final Map<Stmt, CPFact> outValues = Maps.newMap();
+
+    LinearConstantSolver(CallGraph<Invoke, JMethod> callGraph) {
+        this.callGraph = callGraph;
+    }
+
+    DataflowResult<Stmt, CPFact> solve() {
+        computeSummaries();
+        computeValues();
+        DataflowResult<Stmt, CPFact> result = new DataflowResult<>();
+        callGraph.reachableMethods().forEach(method -> {
+            for (Stmt stmt : getCFGOf(method)) {
+                result.setInFact(stmt, inValues.getOrDefault(stmt, new CPFact()));
+                result.setOutFact(stmt, outValues.getOrDefault(stmt, new CPFact()));
+            }
+        });
+        return result;
+    }
+
+    // ---------- phase 1: computing jump functions ----------
+
+    private void computeSummaries() {
+        // analyze callees before callers to reduce re-analysis
+        Queue<JMethod> workList = new SetQueue<>();
+        MergedSCCGraph<JMethod> sccGraph = new MergedSCCGraph<>(callGraph);
+        for (MergedNode<JMethod> scc : new TopoSorter<>(sccGraph, true).get()) {
+            workList.addAll(scc.getNodes());
+        }
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            LinearFunction summary = analyzeMethod(method);
+            if (!summary.equals(summaries.put(method, summary))) {
+                // summary changed, re-analyze the callers
+                callGraph.getCallersOf(method).forEach(callSite ->
+                        workList.add(callGraph.getContainerOf(callSite)));
+            }
+        }
+    }
+
+    /**
+     * Computes the jump functions of the variables in given method
+     * with the current summaries of its callees.
+     *
+     * @return the summary of the method.
+     */
+    private LinearFunction analyzeMethod(JMethod method) {
+        CFG<Stmt> cfg = getCFGOf(method);
+        for (Stmt stmt : cfg) {
+            inFacts.put(stmt, Maps.newHybridMap());
+            outFacts.put(stmt, Maps.newHybridMap());
+        }
+        Map<Var, LinearFunction> boundary = inFacts.get(cfg.getEntry());
+        List<Var> params = cfg.getIR().getParams();
+        for (int i = 0; i < params.size(); ++i) {
+            if (canHoldInt(params.get(i))) {
+                boundary.put(params.get(i), LinearFunction.makeLinear(i, 1, 0));
+            }
+        }
+        Queue<Stmt> workList = new SetQueue<>();
+        cfg.forEach(workList::add);
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            Map<Var, LinearFunction> in = inFacts.get(stmt);
+            for (Stmt pred : cfg.getPredsOf(stmt)) {
+                outFacts.get(pred).forEach((var, f) ->
+                        in.put(var, f.meet(in.getOrDefault(var, LinearFunction.getUndef()))));
+            }
+            if (transferNode(stmt, in, outFacts.get(stmt))) {
+                workList.addAll(cfg.getSuccsOf(stmt));
+            }
+        }
+        LinearFunction summary = LinearFunction.getUndef();
+        for (Stmt stmt : cfg) {
+            if (stmt instanceof Return ret && ret.getValue() != null) {
+                summary = summary.meet(evaluate(ret.getValue(), inFacts.get(stmt)));
+            }
+        }
+        return summary;
+    }
+
+    private boolean transferNode(Stmt stmt, Map<Var, LinearFunction> in,
+                                 Map<Var, LinearFunction> out) {
+        Map<Var, LinearFunction> oldOut = Map.copyOf(out);
+        out.clear();
+        out.putAll(in);
+        if (stmt.getDef().isPresent() && stmt.getDef().get() instanceof Var def
+                && canHoldInt(def)) {
+            LinearFunction f;
+            if (stmt instanceof Invoke invoke) {
+                f = evaluateCall(invoke, in);
+            } else if (stmt instanceof DefinitionStmt<?, ?> defStmt
+                    && defStmt.getRValue() != null) {
+                f = evaluate(defStmt.getRValue(), in);
+            } else {
+                f = LinearFunction.getNAC();
+            }
+            if (f.isUndef()) {
+                out.remove(def);
+            } else {
+                out.put(def, f);
+            }
+        }
+        return !out.equals(oldOut);
+    }
+
+    /**
+     * Instantiates the summaries of the callees at given call site.
+     */
+    private LinearFunction evaluateCall(Invoke invoke, Map<Var, LinearFunction> in) {
+        List<LinearFunction> args = new ArrayList<>();
+        for (Var arg : invoke.getInvokeExp().getArgs()) {
+            args.add(evaluate(arg, in));
+        }
+        LinearFunction result = LinearFunction.getUndef();
+        for (JMethod callee : callGraph.getCalleesOf(invoke)) {
+            result = result.meet(summaries.getOrDefault(
+                    callee, LinearFunction.getUndef()).compose(args));
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the jump function of given expression.
+     * Operations out of the linear constant domain are evaluated
+     * only when both operands are constants, as
+     * {@link ConstantPropagation#evaluate(Exp, CPFact)} does.
+     */
+    private static LinearFunction evaluate(Exp exp, Map<Var, LinearFunction> in) {
+        if (exp instanceof Var var) {
+            return canHoldInt(var) ?
+                    in.getOrDefault(var, LinearFunction.getUndef()) :
+                    LinearFunction.getNAC();
+        } else if (exp instanceof IntLiteral literal) {
+            return LinearFunction.makeConstant(literal.getValue());
+        } else if (exp instanceof BinaryExp binary) {
+            LinearFunction f1 = evaluate(binary.getOperand1(), in);
+            LinearFunction f2 = evaluate(binary.getOperand2(), in);
+            if (f1.isConstant() && f2.isConstant()) {
+                CPFact fact = new CPFact();
+                fact.update(binary.getOperand1(), Value.makeConstant(f1.getConstant()));
+                fact.update(binary.getOperand2(), Value.makeConstant(f2.getConstant()));
+                return LinearFunction.of(ConstantPropagation.evaluate(exp, fact));
+            }
+            BinaryExp.Op op = binary.getOperator();
+            if (f2.isConstant() && f2.getConstant() == 0
+                    && (op == ArithmeticExp.Op.DIV || op == ArithmeticExp.Op.REM)) {
+                return LinearFunction.getUndef();
+            }
+            if (f1.isNAC() || f2.isNAC()) {
+                return LinearFunction.getNAC();
+            }
+            if (f1.isUndef() || f2.isUndef()) {
+                return LinearFunction.getUndef();
+            }
+            LinearFunction result = null;
+            if (op == ArithmeticExp.Op.ADD) {
+                result = f1.add(f2);
+            } else if (op == ArithmeticExp.Op.SUB) {
+                result = f1.add(f2.scale(-1));
+            } else if (op == ArithmeticExp.Op.MUL) {
+                result = f1.isConstant() ? f2.scale(f1.getConstant()) :
+                        f2.isConstant() ? f1.scale(f2.getConstant()) : null;
+            }
+            return result != null ? result : LinearFunction.getNAC();
+        }
+        return LinearFunction.getNAC();
+    }
+
+    // ---------- phase 2: computing values ----------
+
+    private void computeValues() {
+        Queue<JMethod> workList = new SetQueue<>();
+        callGraph.entryMethods().forEach(method -> {
+            paramValues.put(method, Collections.nCopies(
+                    method.getParamCount(), Value.getNAC()));
+            workList.add(method);
+        });
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            Value returnValue = evaluateMethod(method, workList);
+            if (!returnValue.equals(returnValues.put(method, returnValue))) {
+                // return value changed, re-evaluate the callers
+                callGraph.getCallersOf(method).forEach(callSite ->
+                        workList.add(callGraph.getContainerOf(callSite)));
+            }
+        }
+    }
+
+    /**
+     * Computes the values of the variables in given method with
+     * the current values of its parameters, and meets the values of
+     * the arguments into the parameters of its callees.
+     * The callees whose parameters changed are added to the work-list.
+     *
+     * @return the value of the return variables of the method.
+     */
+    private Value evaluateMethod(JMethod method, Queue<JMethod> workList) {
+        CFG<Stmt> cfg = getCFGOf(method);
+        List<Value> params = paramValues.get(method);
+        for (Stmt stmt : cfg) {
+            inValues.put(stmt, new CPFact());
+            outValues.put(stmt, new CPFact());
+        }
+        CPFact boundary = inValues.get(cfg.getEntry());
+        List<Var> paramVars = cfg.getIR().getParams();
+        for (int i = 0; i < paramVars.size(); ++i) {
+            if (canHoldInt(paramVars.get(i))) {
+                boundary.update(paramVars.get(i), params.get(i));
+            }
+        }
+        Queue<Stmt> stmts = new SetQueue<>();
+        cfg.forEach(stmts::add);
+        while (!stmts.isEmpty()) {
+            Stmt stmt = stmts.poll();
+            CPFact in = inValues.get(stmt);
+            if (!cfg.getPredsOf(stmt).isEmpty()) {
+                in.clear();
+                for (Stmt pred : cfg.getPredsOf(stmt)) {
+                    meetValuesInto(pred, params, in);
+                }
+            }
+            if (transferValues(stmt, in, outValues.get(stmt), params)) {
+                stmts.addAll(cfg.getSuccsOf(stmt));
+            }
+        }
+        callGraph.callSitesIn(method).forEach(callSite -> {
+            CPFact in = inValues.get(callSite);
+            List<Var> args = callSite.getInvokeExp().getArgs();
+            for (JMethod callee : callGraph.getCalleesOf(callSite)) {
+                if (meetParams(callee, args, in)) {
+                    workList.add(callee);
+                }
+            }
+        });
+        Value returnValue = Value.getUndef();
+        for (Stmt stmt : cfg) {
+            if (stmt instanceof Return ret && ret.getValue() != null) {
+                returnValue = meetValue(returnValue,
+                        inValues.get(stmt).get(ret.getValue()));
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Meets the values after given predecessor into the target fact.
+     * As the on-ICFG solver does, the result of a call is not defined
+     * by the call site itself, but on the edges to its return sites.
+     */
+    private void meetValuesInto(Stmt pred, List<Value> params, CPFact target) {
+        CPFact out = outValues.get(pred);
+        Var result = pred instanceof Invoke invoke ? invoke.getResult() : null;
+        out.forEach((var, value) -> {
+            if (!var.equals(result)) {
+                target.update(var, meetValue(target.get(var), value));
+            }
+        });
+        if (result != null && canHoldInt(result)) {
+            LinearFunction f = outFacts.get(pred)
+                    .getOrDefault(result, LinearFunction.getUndef());
+            Value value;
+            if (f.isNAC()) {
+                value = Value.getUndef();
+                for (JMethod callee : callGraph.getCalleesOf((Invoke) pred)) {
+                    value = meetValue(value, returnValues.getOrDefault(
+                            callee, Value.getUndef()));
+                }
+            } else {
+                value = f.apply(params);
+            }
+            target.update(result, meetValue(target.get(result), value));
+        }
+    }
+
+    private boolean transferValues(Stmt stmt, CPFact in, CPFact out,
+                                   List<Value> params) {
+        CPFact oldOut = out.copy();
+        out.clear();
+        out.copyFrom(in);
+        if (!(stmt instanceof Invoke) && stmt instanceof DefinitionStmt<?, ?> defStmt
+                && defStmt.getLValue() instanceof Var def && canHoldInt(def)) {
+            LinearFunction f = outFacts.get(stmt)
+                    .getOrDefault(def, LinearFunction.getUndef());
+            Value value;
+            if (!f.isNAC()) {
+                value = f.apply(params);
+            } else if (defStmt.getRValue() != null) {
+                value = ConstantPropagation.evaluate(defStmt.getRValue(), in);
+            } else {
+                value = Value.getNAC();
+            }
+            out.update(def, value);
+        }
+        return !out.equals(oldOut);
+    }
+
+    /**
+     * Meets the values of the arguments at a call site into
+     * the parameters of the callee.
+     *
+     * @return true if the values of the parameters changed.
+     */
+    private boolean meetParams(JMethod callee, List<Var> args, CPFact in) {
+        List<Value> old = paramValues.get(callee);
+        List<Value> params = new ArrayList<>(args.size());
+        for (int i = 0; i < args.size(); ++i) {
+            Value value = in.get(args.get(i));
+            params.add(old == null ? value : meetValue(old.get(i), value));
+        }
+        if (params.equals(old)) {
+            return false;
+        }
+        paramValues.put(callee, params);
+        return true;
+    }
+
+    private static Value meetValue(Value v1, Value v2) {
+        if (v1.isUndef()) {
+            return v2;
+        } else if (v2.isUndef() || v1.equals(v2)) {
+            return v1;
+        } else {
+            return Value.getNAC();
+        }
+    }
+
+    private static CFG<Stmt> getCFGOf(JMethod method) {
+        return method.getIR().getResult(CFGBuilder.ID);
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+
+import java.util.List;
+
+/**
+ * Jump functions of the linear constant domain. A jump function maps
+ * the values of the parameters of a method to the value of a variable,
+ * and it is one of:
+ * <ul>
+ *     <li>UNDEF: the variable has no value;</li>
+ *     <li>a constant {@code b};</li>
+ *     <li>a linear function {@code a * p + b} of an int parameter {@code p};</li>
+ *     <li>NAC: the variable is not a constant.</li>
+ * </ul>
+ */
+final class LinearFunction {
+
+    private enum Kind {
+        UNDEF, CONSTANT, LINEAR, NAC
+    }
+
+    private static final LinearFunction UNDEF =
+            new LinearFunction(Kind.UNDEF, -1, 0, 0);
+
+    private static final LinearFunction NAC =
+            new LinearFunction(Kind.NAC, -1, 0, 0);
+
+    private final Kind kind;
+
+    /**
+     * Index of the parameter, only meaningful for linear functions.
+     */
+    private final int param;
+
+    private final int a;
+
+    private final int b;
+
+    private LinearFunction(Kind kind, int param, int a, int b) {
+        this.kind = kind;
+        this.param = param;
+        this.a = a;
+        this.b = b;
+    }
+
+    static LinearFunction getUndef() {
+        return UNDEF;
+    }
+
+    static LinearFunction getNAC() {
+        return NAC;
+    }
+
+    static LinearFunction makeConstant(int b) {
+        return new LinearFunction(Kind.CONSTANT, -1, 0, b);
+    }
+
+    /**
+     * @return the function {@code a * p + b} where {@code p} is
+     * the param-th parameter.
+     */
+    static LinearFunction makeLinear(int param, int a, int b) {
+        return a == 0 ? makeConstant(b) :
+                new LinearFunction(Kind.LINEAR, param, a, b);
+    }
+
+    /**
+     * @return the constant function of given value.
+     */
+    static LinearFunction of(Value value) {
+        if (value.isConstant()) {
+            return makeConstant(value.getConstant());
+        }
+        return value.isNAC() ? NAC : UNDEF;
+    }
+
+    boolean isUndef() {
+        return kind == Kind.UNDEF;
+    }
+
+    boolean isConstant() {
+        return kind == Kind.CONSTANT;
+    }
+
+    boolean isNAC() {
+        return kind == Kind.NAC;
+    }
+
+    /**
+     * If this is a constant function, then returns its value.
+     */
+    int getConstant() {
+        if (!isConstant()) {
+            throw new UnsupportedOperationException(
+                    "Function " + this + " is not a constant");
+        }
+        return b;
+    }
+
+    /**
+     * Meets this function with other one.
+     */
+    LinearFunction meet(LinearFunction other) {
+        if (isUndef()) {
+            return other;
+        } else if (other.isUndef()) {
+            return this;
+        } else if (equals(other)) {
+            return this;
+        } else {
+            return NAC;
+        }
+    }
+
+    /**
+     * @return {@code this + other}, or {@code null} if the sum
+     * is not in the linear constant domain.
+     */
+    LinearFunction add(LinearFunction other) {
+        if (isConstant() && other.isConstant()) {
+            return makeConstant(b + other.b);
+        } else if (kind == Kind.LINEAR && other.isConstant()) {
+            return makeLinear(param, a, b + other.b);
+        } else if (isConstant() && other.kind == Kind.LINEAR) {
+            return makeLinear(other.param, other.a, b + other.b);
+        } else if (kind == Kind.LINEAR && other.kind == Kind.LINEAR
+                && param == other.param) {
+            return makeLinear(param, a + other.a, b + other.b);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * @return {@code c * this}, or {@code null} if this function
+     * is UNDEF or NAC.
+     */
+    LinearFunction scale(int c) {
+        return switch (kind) {
+            case CONSTANT -> makeConstant(c * b);
+            case LINEAR -> makeLinear(param, c * a, c * b);
+            default -> null;
+        };
+    }
+
+    /**
+     * Composes this function with the jump functions of the arguments,
+     * i.e., substitutes the parameter of this function.
+     * This is used to instantiate the summary of a callee at a call site.
+     *
+     * @param args jump functions of the arguments of the call site
+     */
+    LinearFunction compose(List<LinearFunction> args) {
+        if (kind != Kind.LINEAR) {
+            return this;
+        }
+        LinearFunction arg = args.get(param);
+        return switch (arg.kind) {
+            case UNDEF, NAC -> arg;
+            case CONSTANT -> makeConstant(a * arg.b + b);
+            case LINEAR -> makeLinear(arg.param, a * arg.a, a * arg.b + b);
+        };
+    }
+
+    /**
+     * Applies this function to the values of the parameters.
+     */
+    Value apply(List<Value> params) {
+        return switch (kind) {
+            case UNDEF -> Value.getUndef();
+            case CONSTANT -> Value.makeConstant(b);
+            case NAC -> Value.getNAC();
+            case LINEAR -> {
+                Value p = params.get(param);
+                yield p.isConstant() ? Value.makeConstant(a * p.getConstant() + b) : p;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LinearFunction that)) {
+            return false;
+        }
+        return kind == that.kind && param == that.param
+                && a == that.a && b == that.b;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((kind.hashCode() * 31 + param) * 31 + a) * 31 + b;
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case UNDEF -> "UNDEF";
+            case CONSTANT -> Integer.toString(b);
+            case LINEAR -> a + "*p" + param + "+" + b;
+            case NAC -> "NAC";
+        };
+    }
+}
@@ -26,6 +26,7 @@ import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
+import pascal.taie.util.graph.Reachability;
 
 import java.util.Collections;
 import java.util.Map;
@@ -52,6 +53,12 @@ public abstract class AbstractCallGraph<CallSite, Method>
     protected final Set<Method> entryMethods = Sets.newSet();
     protected final Set<Method> reachableMethods = Sets.newSet();
 
+    /**
+     * Reachability index of this call graph, which is built on demand,
+     * and is discarded when this call graph changes.
+     */
+    private Reachability<Method> reachability;
+
     @Override
     public Set<CallSite> getCallersOf(Method callee) {
         return Views.toMappedSet(calleeToEdges.get(callee), Edge::getCallSite);
@@ -119,6 +126,22 @@ public abstract class AbstractCallGraph<CallSite, Method>
         return reachableMethods.contains(method);
     }
 
+    @Override
+    public boolean isReachable(Method source, Method target) {
+        if (reachability == null) {
+            reachability = new Reachability<>(this);
+        }
+        return reachability.isReachable(source, target);
+    }
+
+    /**
+     * Discards the reachability index. Subclasses should call this method
+     * when they add new methods or edges to this call graph.
+     */
+    protected void resetReachability() {
+        reachability = null;
+    }
+
     // Implementation for Graph interface.
 
     @Override
@@ -107,4 +107,12 @@ public interface CallGraph<CallSite, Method> extends Graph<Method>, StmtResult<S
      * @return true if this call graph contains the given method, otherwise false.
      */
     boolean contains(Method method);
+
+    /**
+     * @return true if {@code target} is reachable from {@code source}
+     * via call edges in this call graph, i.e., {@code source} may call
+     * {@code target} directly or transitively. Each method in this call
+     * graph is reachable from itself.
+     */
+    boolean isReachable(Method source, Method target);
 }
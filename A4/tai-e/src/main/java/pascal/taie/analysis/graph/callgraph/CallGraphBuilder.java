@@ -32,6 +32,7 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.ClassHierarchyImpl;
 import pascal.taie.language.classes.JMethod;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Comparator;
 
@@ -55,6 +56,29 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
+        CallGraph<Invoke, JMethod> callGraph;
+        String cache = getOptions().getString("cache");
+        if (cache != null) {
+            // reuse the call graph saved by previous runs if the program
+            // has not changed, otherwise build it and save it for later runs
+            File cacheFile = new File(cache);
+            String fingerprint = CallGraphSerializer.getFingerprint(algorithm);
+            callGraph = CallGraphSerializer.load(fingerprint, cacheFile);
+            if (callGraph == null) {
+                callGraph = build();
+                CallGraphSerializer.save(callGraph, fingerprint, cacheFile);
+            }
+        } else {
+            callGraph = build();
+        }
+        if (getOptions().getBooleanOrDefault("freeze", false)) {
+            callGraph = new CompactCallGraph<>(callGraph);
+        }
+        takeAction(callGraph);
+        return callGraph;
+    }
+
+    private CallGraph<Invoke, JMethod> build() {
         CGBuilder<Invoke, JMethod> builder;
         if (algorithm.equals("cha")) {
             builder = new CHABuilder();
@@ -64,7 +88,6 @@ public class CallGraphBuilder extends ProgramAnalysis {
         ClassHierarchyImpl.setCheckCHA(true);
         CallGraph<Invoke, JMethod> callGraph = builder.build();
         ClassHierarchyImpl.setCheckCHA(false);
-        takeAction(callGraph);
         return callGraph;
     }
 
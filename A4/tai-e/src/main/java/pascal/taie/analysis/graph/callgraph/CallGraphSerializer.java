@@ -0,0 +1,264 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.Options;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.StringReps;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Saves call graphs to and loads call graphs from binary files,
+ * so that a call graph can be reused across runs on the same program.
+ * <p>
+ * Methods are referenced by their signatures, and call sites are
+ * referenced by (container method, index of the call site in the IR
+ * of the container). Each file records a fingerprint of the analyzed
+ * program (see {@link #getFingerprint(String)}), and a file whose
+ * fingerprint does not match the current program is ignored.
+ * <p>
+ * Any {@link CallGraph} can be saved, but only {@link CallGraphBuilder}
+ * reuses saved call graphs (option {@code cache}). Call graphs built by
+ * pointer analysis are not cached, as they come with the points-to
+ * results, and loading the call graph alone would not skip the analysis.
+ */
+public final class CallGraphSerializer {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphSerializer.class);
+
+    /**
+     * Magic number of call graph files, i.e., "TCG" and format version.
+     */
+    private static final int MAGIC = 0x54434701;
+
+    private static final CallKind[] CALL_KINDS = CallKind.values();
+
+    private CallGraphSerializer() {
+    }
+
+    /**
+     * Saves a call graph to given file.
+     *
+     * @param callGraph   the call graph to be saved
+     * @param fingerprint fingerprint of the program being analyzed
+     * @param file        the output file
+     */
+    public static void save(CallGraph<Invoke, JMethod> callGraph,
+                            String fingerprint, File file) {
+        logger.info("Saving call graph to {} ...", file);
+        Map<JMethod, Integer> methodIds = Maps.newMap(callGraph.getNumberOfMethods());
+        List<JMethod> methods = new ArrayList<>(callGraph.getNumberOfMethods());
+        callGraph.reachableMethods().forEach(m -> {
+            methodIds.put(m, methods.size());
+            methods.add(m);
+        });
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(fingerprint);
+            out.writeInt(methods.size());
+            for (JMethod method : methods) {
+                out.writeUTF(StringReps.getSignatureOf(method));
+            }
+            List<JMethod> entries = callGraph.entryMethods().toList();
+            out.writeInt(entries.size());
+            for (JMethod entry : entries) {
+                out.writeInt(methodIds.get(entry));
+            }
+            // call sites are grouped by their containers, so that
+            // each container is written only once
+            for (JMethod method : methods) {
+                List<Invoke> callSites = callGraph.callSitesIn(method)
+                        .filter(cs -> !callGraph.getCalleesOf(cs).isEmpty())
+                        .toList();
+                out.writeInt(callSites.size());
+                for (Invoke callSite : callSites) {
+                    out.writeInt(callSite.getIndex());
+                    List<Edge<Invoke, JMethod>> edges =
+                            callGraph.edgesOutOf(callSite).toList();
+                    out.writeInt(edges.size());
+                    for (Edge<Invoke, JMethod> edge : edges) {
+                        out.writeByte(edge.getKind().ordinal());
+                        out.writeInt(methodIds.get(edge.getCallee()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to save call graph to {}", file, e);
+        }
+    }
+
+    /**
+     * Loads a call graph from given file.
+     *
+     * @param fingerprint fingerprint of the program being analyzed
+     * @param file        the input file
+     * @return the loaded call graph, or null if the file does not exist,
+     * is malformed, or was saved for a different program.
+     */
+    public static DefaultCallGraph load(String fingerprint, File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        logger.info("Loading call graph from {} ...", file);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                logger.info("{} is not a call graph file of this version", file);
+                return null;
+            }
+            if (!in.readUTF().equals(fingerprint)) {
+                logger.info("Program has changed since {} was saved", file);
+                return null;
+            }
+            JMethod[] methods = new JMethod[in.readInt()];
+            for (int i = 0; i < methods.length; ++i) {
+                String signature = in.readUTF();
+                methods[i] = getMethod(signature);
+                if (methods[i] == null) {
+                    logger.info("Cannot find method {}", signature);
+                    return null;
+                }
+            }
+            DefaultCallGraph callGraph = new DefaultCallGraph(true);
+            int nEntries = in.readInt();
+            for (int i = 0; i < nEntries; ++i) {
+                callGraph.addEntryMethod(methods[in.readInt()]);
+            }
+            for (JMethod method : methods) {
+                callGraph.addReachableMethod(method);
+            }
+            for (JMethod method : methods) {
+                int nCallSites = in.readInt();
+                if (nCallSites == 0) {
+                    continue;
+                }
+                IR ir = method.getIR();
+                for (int i = 0; i < nCallSites; ++i) {
+                    int index = in.readInt();
+                    Stmt stmt = index < ir.getStmts().size() ? ir.getStmt(index) : null;
+                    if (!(stmt instanceof Invoke callSite)) {
+                        logger.info("Call site {} of {} does not exist", index, method);
+                        return null;
+                    }
+                    int nEdges = in.readInt();
+                    for (int j = 0; j < nEdges; ++j) {
+                        CallKind kind = CALL_KINDS[in.readByte()];
+                        callGraph.addEdge(new Edge<>(kind, callSite, methods[in.readInt()]));
+                    }
+                }
+            }
+            return callGraph;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load call graph from {}", file, e);
+            return null;
+        }
+    }
+
+    private static JMethod getMethod(String signature) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        JClass jclass = hierarchy.getClass(StringReps.getClassNameOf(signature));
+        return jclass == null ? null : jclass.getDeclaredMethod(
+                Subsignature.get(StringReps.getSubsignatureOf(signature)));
+    }
+
+    /**
+     * Computes the fingerprint of the program being analyzed. The fingerprint
+     * covers the given call graph algorithm, main class, class path and
+     * the size and modification time of every file on the class path.
+     */
+    public static String getFingerprint(String algorithm) {
+        Options options = World.get().getOptions();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        update(digest, algorithm);
+        update(digest, options.getMainClass());
+        update(digest, String.valueOf(options.getJavaVersion()));
+        update(digest, String.valueOf(options.isPrependJVM()));
+        String classPath = options.getClassPath();
+        if (classPath != null) {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                update(digest, entry);
+                Path path = Paths.get(entry);
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> files = Files.walk(path)) {
+                        files.filter(Files::isRegularFile)
+                                .sorted()
+                                .forEach(f -> {
+                                    update(digest, path.relativize(f).toString());
+                                    updateFileStats(digest, f.toFile());
+                                });
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                } else {
+                    updateFileStats(digest, path.toFile());
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(String.valueOf(s).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static void updateFileStats(MessageDigest digest, File file) {
+        update(digest, file.length() + ":" + file.lastModified());
+    }
+}
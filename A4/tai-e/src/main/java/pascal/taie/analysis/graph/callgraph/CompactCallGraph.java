@@ -0,0 +1,502 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.Reachability;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable, compact representation of call graph.
+ * <p>
+ * Each reachable method and each call site is assigned a dense int ID,
+ * and all adjacency relations (call site to callees, method to callers,
+ * method to its call sites, and method-level successors/predecessors)
+ * are stored as compressed sparse row (CSR) arrays. Call sites are
+ * numbered method by method, thus the call sites in a method always
+ * occupy a contiguous ID range.
+ * <p>
+ * This call graph is built from an existing (mutable) call graph after
+ * its construction finishes, and it cannot be modified afterwards.
+ *
+ * @param <CallSite> type of call sites
+ * @param <Method>   type of methods
+ */
+public class CompactCallGraph<CallSite, Method>
+        implements CallGraph<CallSite, Method> {
+
+    private static final CallKind[] CALL_KINDS = CallKind.values();
+
+    private final List<Method> methods;
+
+    private final Map<Method, Integer> methodIds;
+
+    private final List<CallSite> callSites;
+
+    private final Map<CallSite, Integer> callSiteIds;
+
+    private final int[] entries;
+
+    /**
+     * Container (method ID) of each call site.
+     */
+    private final int[] containers;
+
+    /**
+     * Call sites of method m are [callSiteStarts[m], callSiteStarts[m+1]).
+     */
+    private final int[] callSiteStarts;
+
+    /**
+     * Edges out of call site c are [edgeStarts[c], edgeStarts[c+1]).
+     */
+    private final int[] edgeStarts;
+
+    private final int[] edgeCallees;
+
+    private final byte[] edgeKinds;
+
+    /**
+     * IDs of edges into method m are
+     * inEdges[inEdgeStarts[m] .. inEdgeStarts[m+1]).
+     */
+    private final int[] inEdgeStarts;
+
+    private final int[] inEdges;
+
+    /**
+     * Call site of each edge, i.e., the inverse of {@link #edgeStarts}.
+     */
+    private final int[] edgeCallSites;
+
+    /**
+     * Distinct callee methods of method m are
+     * succs[succStarts[m] .. succStarts[m+1]).
+     */
+    private final int[] succStarts;
+
+    private final int[] succs;
+
+    /**
+     * Distinct caller methods of method m are
+     * preds[predStarts[m] .. predStarts[m+1]).
+     */
+    private final int[] predStarts;
+
+    private final int[] preds;
+
+    /**
+     * Reachability index of this call graph, which is built on demand.
+     */
+    private Reachability<Method> reachability;
+
+    /**
+     * Builds a compact call graph which has the same methods, call sites
+     * and call edges as the given call graph.
+     */
+    public CompactCallGraph(CallGraph<CallSite, Method> callGraph) {
+        // number methods and call sites
+        int nMethods = callGraph.getNumberOfMethods();
+        methods = new ArrayList<>(nMethods);
+        methodIds = Maps.newMap(nMethods);
+        callGraph.reachableMethods().forEach(m -> {
+            methodIds.put(m, methods.size());
+            methods.add(m);
+        });
+        callSites = new ArrayList<>();
+        callSiteIds = Maps.newMap();
+        callSiteStarts = new int[nMethods + 1];
+        for (int m = 0; m < nMethods; ++m) {
+            callSiteStarts[m] = callSites.size();
+            callGraph.callSitesIn(methods.get(m)).forEach(cs -> {
+                callSiteIds.put(cs, callSites.size());
+                callSites.add(cs);
+            });
+        }
+        callSiteStarts[nMethods] = callSites.size();
+        int nCallSites = callSites.size();
+        containers = new int[nCallSites];
+        for (int m = 0; m < nMethods; ++m) {
+            Arrays.fill(containers, callSiteStarts[m], callSiteStarts[m + 1], m);
+        }
+        entries = callGraph.entryMethods()
+                .mapToInt(methodIds::get)
+                .toArray();
+        // build call site -> callees and the inverse of it
+        int nEdges = callGraph.getNumberOfEdges();
+        edgeStarts = new int[nCallSites + 1];
+        edgeCallees = new int[nEdges];
+        edgeKinds = new byte[nEdges];
+        edgeCallSites = new int[nEdges];
+        int[] inDegrees = new int[nMethods];
+        int e = 0;
+        for (int c = 0; c < nCallSites; ++c) {
+            edgeStarts[c] = e;
+            for (Edge<CallSite, Method> edge : (Iterable<Edge<CallSite, Method>>)
+                    callGraph.edgesOutOf(callSites.get(c))::iterator) {
+                int callee = methodIds.get(edge.getCallee());
+                edgeCallees[e] = callee;
+                edgeKinds[e] = (byte) edge.getKind().ordinal();
+                edgeCallSites[e] = c;
+                ++inDegrees[callee];
+                ++e;
+            }
+        }
+        edgeStarts[nCallSites] = e;
+        if (e < nEdges) { // some edges are not from call sites in reachable methods
+            throw new IllegalArgumentException(
+                    "Call graph contains edges from unknown call sites");
+        }
+        inEdgeStarts = toStarts(inDegrees);
+        inEdges = new int[e];
+        int[] cursors = Arrays.copyOf(inEdgeStarts, nMethods);
+        for (int i = 0; i < e; ++i) {
+            inEdges[cursors[edgeCallees[i]]++] = i;
+        }
+        // build method-level adjacency, duplicate callees (callers)
+        // are removed with the help of a "last visited" marker
+        int[] marks = new int[nMethods];
+        Arrays.fill(marks, -1);
+        succStarts = new int[nMethods + 1];
+        int[] succBuffer = new int[e];
+        int nSuccs = 0;
+        int[] outDegrees = new int[nMethods];
+        for (int m = 0; m < nMethods; ++m) {
+            succStarts[m] = nSuccs;
+            for (int i = edgeStarts[callSiteStarts[m]];
+                 i < edgeStarts[callSiteStarts[m + 1]]; ++i) {
+                int callee = edgeCallees[i];
+                if (marks[callee] != m) {
+                    marks[callee] = m;
+                    succBuffer[nSuccs++] = callee;
+                    ++outDegrees[callee];
+                }
+            }
+        }
+        succStarts[nMethods] = nSuccs;
+        succs = Arrays.copyOf(succBuffer, nSuccs);
+        predStarts = toStarts(outDegrees);
+        preds = new int[nSuccs];
+        cursors = Arrays.copyOf(predStarts, nMethods);
+        for (int m = 0; m < nMethods; ++m) {
+            for (int i = succStarts[m]; i < succStarts[m + 1]; ++i) {
+                preds[cursors[succs[i]]++] = m;
+            }
+        }
+    }
+
+    /**
+     * Converts node degrees to CSR start offsets.
+     */
+    private static int[] toStarts(int[] degrees) {
+        int[] starts = new int[degrees.length + 1];
+        for (int i = 0; i < degrees.length; ++i) {
+            starts[i + 1] = starts[i] + degrees[i];
+        }
+        return starts;
+    }
+
+    /**
+     * @return the ID of given method, or -1 if the method is not
+     * in this call graph.
+     */
+    public int getMethodId(Method method) {
+        Integer id = methodIds.get(method);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return the method of given ID.
+     */
+    public Method getMethod(int id) {
+        return methods.get(id);
+    }
+
+    /**
+     * @return the ID of given call site, or -1 if the call site is not
+     * in this call graph.
+     */
+    public int getCallSiteId(CallSite callSite) {
+        Integer id = callSiteIds.get(callSite);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return the call site of given ID.
+     */
+    public CallSite getCallSite(int id) {
+        return callSites.get(id);
+    }
+
+    /**
+     * @return the number of call sites in this call graph.
+     */
+    public int getNumberOfCallSites() {
+        return callSites.size();
+    }
+
+    private Edge<CallSite, Method> getEdge(int e) {
+        return new Edge<>(CALL_KINDS[edgeKinds[e]],
+                callSites.get(edgeCallSites[e]), methods.get(edgeCallees[e]));
+    }
+
+    @Override
+    public Set<CallSite> getCallersOf(Method callee) {
+        int m = getMethodId(callee);
+        if (m == -1) {
+            return Set.of();
+        }
+        return new IdSet<>(inEdges, inEdgeStarts[m], inEdgeStarts[m + 1],
+                e -> callSites.get(edgeCallSites[e]));
+    }
+
+    @Override
+    public Set<Method> getCalleesOf(CallSite callSite) {
+        int c = getCallSiteId(callSite);
+        if (c == -1) {
+            return Set.of();
+        }
+        return new IdSet<>(edgeCallees, edgeStarts[c], edgeStarts[c + 1],
+                methods::get);
+    }
+
+    @Override
+    public Set<Method> getCalleesOfM(Method caller) {
+        return getSuccsOf(caller);
+    }
+
+    @Override
+    public Method getContainerOf(CallSite callSite) {
+        int c = getCallSiteId(callSite);
+        return c != -1 ? methods.get(containers[c]) : null;
+    }
+
+    @Override
+    public Set<CallSite> getCallSitesIn(Method method) {
+        int m = getMethodId(method);
+        if (m == -1) {
+            return Set.of();
+        }
+        return new IdSet<>(null, callSiteStarts[m], callSiteStarts[m + 1],
+                callSites::get);
+    }
+
+    @Override
+    public Stream<Edge<CallSite, Method>> edgesOutOf(CallSite callSite) {
+        int c = getCallSiteId(callSite);
+        if (c == -1) {
+            return Stream.of();
+        }
+        return IntStream.range(edgeStarts[c], edgeStarts[c + 1])
+                .mapToObj(this::getEdge);
+    }
+
+    @Override
+    public Stream<Edge<CallSite, Method>> edgesInTo(Method method) {
+        int m = getMethodId(method);
+        if (m == -1) {
+            return Stream.of();
+        }
+        return IntStream.range(inEdgeStarts[m], inEdgeStarts[m + 1])
+                .mapToObj(i -> getEdge(inEdges[i]));
+    }
+
+    @Override
+    public Stream<Edge<CallSite, Method>> edges() {
+        return IntStream.range(0, edgeCallees.length)
+                .mapToObj(this::getEdge);
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return edgeCallees.length;
+    }
+
+    @Override
+    public Stream<Method> entryMethods() {
+        return Arrays.stream(entries).mapToObj(methods::get);
+    }
+
+    @Override
+    public Stream<Method> reachableMethods() {
+        return methods.stream();
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return methods.size();
+    }
+
+    @Override
+    public boolean contains(Method method) {
+        return methodIds.containsKey(method);
+    }
+
+    @Override
+    public boolean isReachable(Method source, Method target) {
+        if (reachability == null) {
+            reachability = new Reachability<>(this);
+        }
+        return reachability.isReachable(source, target);
+    }
+
+    // Implementation for StmtResult interface.
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return callSiteIds.containsKey(stmt);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Method> getResult(Stmt stmt) {
+        return getCalleesOf((CallSite) stmt);
+    }
+
+    // Implementation for Graph interface.
+
+    @Override
+    public boolean hasNode(Method node) {
+        return contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(Method source, Method target) {
+        int s = getMethodId(source);
+        int t = getMethodId(target);
+        if (s == -1 || t == -1) {
+            return false;
+        }
+        for (int i = succStarts[s]; i < succStarts[s + 1]; ++i) {
+            if (succs[i] == t) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<MethodEdge<CallSite, Method>> getInEdgesOf(Method method) {
+        return edgesInTo(method)
+                .map(e -> new MethodEdge<>(getContainerOf(e.getCallSite()),
+                        method, e.getCallSite()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<MethodEdge<CallSite, Method>> getOutEdgesOf(Method method) {
+        return callSitesIn(method)
+                .flatMap(this::edgesOutOf)
+                .map(e -> new MethodEdge<>(method, e.getCallee(), e.getCallSite()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<Method> getPredsOf(Method node) {
+        int m = getMethodId(node);
+        if (m == -1) {
+            return Set.of();
+        }
+        return new IdSet<>(preds, predStarts[m], predStarts[m + 1], methods::get);
+    }
+
+    @Override
+    public Set<Method> getSuccsOf(Method node) {
+        int m = getMethodId(node);
+        if (m == -1) {
+            return Set.of();
+        }
+        return new IdSet<>(succs, succStarts[m], succStarts[m + 1], methods::get);
+    }
+
+    @Override
+    public Set<Method> getNodes() {
+        return new IdSet<>(null, 0, methods.size(), methods::get);
+    }
+
+    /**
+     * Unmodifiable set view of a slice [from, to) of an int array
+     * whose elements are mapped to objects. If the array is null,
+     * the slice itself is treated as the IDs.
+     * The elements in the slice must be distinct.
+     */
+    private static class IdSet<E> extends AbstractSet<E> {
+
+        private final int[] ids;
+
+        private final int from;
+
+        private final int to;
+
+        private final IntFunction<E> mapper;
+
+        private IdSet(int[] ids, int from, int to, IntFunction<E> mapper) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int i = from;
+
+                @Override
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int id = ids != null ? ids[i] : i;
+                    ++i;
+                    return mapper.apply(id);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -25,6 +25,7 @@ package pascal.taie.analysis.graph.callgraph;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
 
 import java.util.Set;
 
@@ -33,6 +34,34 @@ import java.util.Set;
  */
 public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
 
+    /**
+     * Whether the call sites of reachable methods are indexed lazily.
+     */
+    private final boolean lazy;
+
+    /**
+     * Reachable methods whose call sites have not been indexed yet.
+     * Only used in lazy mode.
+     */
+    private final Set<JMethod> unindexedMethods = Sets.newSet();
+
+    public DefaultCallGraph() {
+        this(false);
+    }
+
+    /**
+     * @param lazy if true, the call sites of a reachable method are indexed
+     *             when they are queried for the first time, instead of when
+     *             the method is added to this call graph. This avoids
+     *             building IR for the methods whose call sites are never
+     *             queried, thus it only pays off for the builders that
+     *             do not query the call sites of every reachable method,
+     *             e.g., the call graph loader.
+     */
+    public DefaultCallGraph(boolean lazy) {
+        this.lazy = lazy;
+    }
+
     /**
      * Adds an entry method to this call graph.
      */
@@ -48,19 +77,48 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
      */
     public boolean addReachableMethod(JMethod method) {
         if (reachableMethods.add(method)) {
+            resetReachability();
             if (!method.isAbstract()) {
-                method.getIR().forEach(stmt -> {
-                    if (stmt instanceof Invoke invoke) {
-                        callSiteToContainer.put(invoke, method);
-                        callSitesIn.put(method, invoke);
-                    }
-                });
+                if (lazy) {
+                    unindexedMethods.add(method);
+                } else {
+                    indexCallSites(method);
+                }
             }
             return true;
         }
         return false;
     }
 
+    private void indexCallSites(JMethod method) {
+        method.getIR().getInvokes().forEach(invoke -> {
+            callSiteToContainer.put(invoke, method);
+            callSitesIn.put(method, invoke);
+        });
+    }
+
+    /**
+     * @return whether the call sites of given method have been indexed.
+     * In lazy mode, this is false for a reachable method until its
+     * call sites are queried.
+     */
+    public boolean isIndexed(JMethod method) {
+        return reachableMethods.contains(method) &&
+                !unindexedMethods.contains(method);
+    }
+
+    /**
+     * {@inheritDoc}
+     * In lazy mode, the first query of a method indexes its call sites.
+     */
+    @Override
+    public Set<Invoke> getCallSitesIn(JMethod method) {
+        if (lazy && unindexedMethods.remove(method)) {
+            indexCallSites(method);
+        }
+        return super.getCallSitesIn(method);
+    }
+
     /**
      * Adds a new call graph edge to this call graph.
      *
@@ -71,6 +129,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
     public boolean addEdge(Edge<Invoke, JMethod> edge) {
         if (callSiteToEdges.put(edge.getCallSite(), edge)) {
             calleeToEdges.put(edge.getCallee(), edge);
+            resetReachability();
             return true;
         } else {
             return false;
@@ -0,0 +1,240 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.icfg;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ICFG which is built on demand.
+ * <p>
+ * Initially, only the entry (and exit) nodes of the entry methods are
+ * known. The CFG of a method and the call/return edges of its call sites
+ * are added to this ICFG (i.e., the method is expanded) when the entry or
+ * exit node of the method is queried for the first time. The callees of
+ * an expanded method become known, and they will be expanded when
+ * their entry nodes are queried, e.g., when a data-flow solver reaches them
+ * via call edges. A solver may defer expanding the callees that no
+ * data-flow fact reaches.
+ * <p>
+ * Consequently, {@link #getNodes()} only contains the nodes of the methods
+ * expanded so far, and the in-edges of a method entry only contain the call
+ * edges from the expanded callers.
+ */
+public class LazyICFG extends AbstractICFG<JMethod, Stmt> {
+
+    private static final Logger logger = LogManager.getLogger(LazyICFG.class);
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> inEdges = Maps.newMultiMap();
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> outEdges = Maps.newMultiMap();
+
+    private final Map<Stmt, CFG<Stmt>> stmtToCFG = Maps.newMap();
+
+    private final Set<JMethod> expandedMethods = Sets.newSet();
+
+    /**
+     * Entry and exit nodes of the known, but not expanded, methods.
+     */
+    private final Map<Stmt, JMethod> pendingNodes = Maps.newMap();
+
+    LazyICFG(CallGraph<Stmt, JMethod> callGraph) {
+        super(callGraph);
+        callGraph.entryMethods().forEach(method -> {
+            if (ICFGBuilder.getCFGOf(method) == null) {
+                logger.warn("{} is missing in ICFG", method);
+            } else {
+                addPendingMethod(method);
+            }
+        });
+    }
+
+    private void addPendingMethod(JMethod method) {
+        if (!expandedMethods.contains(method)) {
+            CFG<Stmt> cfg = ICFGBuilder.getCFGOf(method);
+            pendingNodes.put(cfg.getEntry(), method);
+            pendingNodes.put(cfg.getExit(), method);
+        }
+    }
+
+    /**
+     * Expands the method containing the given node if the method has not
+     * been expanded.
+     */
+    private void ensureExpanded(Stmt node) {
+        JMethod method = pendingNodes.get(node);
+        if (method != null) {
+            expand(method);
+        }
+    }
+
+    private void expand(JMethod method) {
+        expandedMethods.add(method);
+        CFG<Stmt> cfg = ICFGBuilder.getCFGOf(method);
+        pendingNodes.remove(cfg.getEntry());
+        pendingNodes.remove(cfg.getExit());
+        cfg.forEach(stmt -> {
+            stmtToCFG.put(stmt, cfg);
+            cfg.getOutEdgesOf(stmt).forEach(edge -> {
+                ICFGEdge<Stmt> local = isCallSite(stmt) ?
+                        new CallToReturnEdge<>(edge) :
+                        new NormalEdge<>(edge);
+                outEdges.put(stmt, local);
+                inEdges.put(edge.getTarget(), local);
+            });
+            if (isCallSite(stmt)) {
+                getCalleesOf(stmt).forEach(callee -> addCallee(stmt, callee));
+            }
+        });
+    }
+
+    private void addCallee(Stmt callSite, JMethod callee) {
+        CFG<Stmt> calleeCFG = ICFGBuilder.getCFGOf(callee);
+        if (calleeCFG == null) {
+            logger.warn("{} is missing in ICFG", callee);
+            return;
+        }
+        addPendingMethod(callee);
+        // add call edge
+        Stmt entry = calleeCFG.getEntry();
+        CallEdge<Stmt> callEdge = new CallEdge<>(callSite, entry, callee);
+        outEdges.put(callSite, callEdge);
+        inEdges.put(entry, callEdge);
+        // add return edges
+        Stmt exit = calleeCFG.getExit();
+        Set<Var> retVars = Sets.newHybridSet();
+        Set<ClassType> exceptions = Sets.newHybridSet();
+        calleeCFG.getInEdgesOf(exit).forEach(retEdge -> {
+            if (retEdge.getKind() == Edge.Kind.RETURN) {
+                Var retVar = ((Return) retEdge.getSource()).getValue();
+                if (retVar != null) {
+                    retVars.add(retVar);
+                }
+            }
+            if (retEdge.isExceptional()) {
+                exceptions.addAll(retEdge.getExceptions());
+            }
+        });
+        getReturnSitesOf(callSite).forEach(retSite -> {
+            ReturnEdge<Stmt> retEdge = new ReturnEdge<>(
+                    exit, retSite, callSite, retVars, exceptions);
+            outEdges.put(exit, retEdge);
+            inEdges.put(retSite, retEdge);
+        });
+    }
+
+    /**
+     * @return true if the given method has been expanded.
+     */
+    public boolean isExpanded(JMethod method) {
+        return expandedMethods.contains(method);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        ensureExpanded(stmt);
+        return inEdges.get(stmt);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        ensureExpanded(stmt);
+        return outEdges.get(stmt);
+    }
+
+    @Override
+    public Stmt getEntryOf(JMethod method) {
+        return ICFGBuilder.getCFGOf(method).getEntry();
+    }
+
+    @Override
+    public Stmt getExitOf(JMethod method) {
+        return ICFGBuilder.getCFGOf(method).getExit();
+    }
+
+    @Override
+    public Set<Stmt> getReturnSitesOf(Stmt callSite) {
+        assert isCallSite(callSite);
+        return stmtToCFG.get(callSite).getSuccsOf(callSite);
+    }
+
+    @Override
+    public JMethod getContainingMethodOf(Stmt stmt) {
+        ensureExpanded(stmt);
+        return stmtToCFG.get(stmt).getMethod();
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public boolean hasNode(Stmt stmt) {
+        ensureExpanded(stmt);
+        return stmtToCFG.containsKey(stmt);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getOutEdgesOf(source)
+                .stream()
+                .anyMatch(edge -> edge.getTarget().equals(target));
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        return Views.toMappedSet(getInEdgesOf(stmt), ICFGEdge::getSource);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        return Views.toMappedSet(getOutEdgesOf(stmt), ICFGEdge::getTarget);
+    }
+
+    /**
+     * @return the nodes of the methods that have been expanded so far.
+     */
+    @Override
+    public Set<Stmt> getNodes() {
+        return Collections.unmodifiableSet(stmtToCFG.keySet());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.util.graph;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reachability index of a graph, which answers whether a node can reach
+ * another one in constant time.
+ * <p>
+ * The index is built on the DAG of the strongly connected components of
+ * the graph: the nodes in the same SCC reach the same nodes, thus it only
+ * stores, for each SCC, the bitset of the SCCs reachable from it.
+ *
+ * @param <N> type of nodes
+ */
+public class Reachability<N> {
+
+    /**
+     * Maps each node to the index of its SCC.
+     */
+    private final Map<N, Integer> sccIndexes;
+
+    /**
+     * Transitive closure of the SCC DAG, i.e., the i-th bitset contains
+     * the indexes of the SCCs reachable from the i-th SCC.
+     */
+    private final BitSet[] closures;
+
+    public Reachability(Graph<N> graph) {
+        MergedSCCGraph<N> sccGraph = new MergedSCCGraph<>(graph);
+        // in reverse topological order, the successors of each SCC
+        // are visited before it
+        List<MergedNode<N>> sccs = new TopoSorter<>(sccGraph, true).get();
+        Map<MergedNode<N>, Integer> indexes = Maps.newMap(sccs.size());
+        sccIndexes = Maps.newMap(graph.getNumberOfNodes());
+        closures = new BitSet[sccs.size()];
+        for (int i = 0; i < sccs.size(); ++i) {
+            MergedNode<N> scc = sccs.get(i);
+            indexes.put(scc, i);
+            for (N node : scc.getNodes()) {
+                sccIndexes.put(node, i);
+            }
+            BitSet closure = new BitSet();
+            closure.set(i);
+            for (MergedNode<N> succ : sccGraph.getSuccsOf(scc)) {
+                closure.or(closures[indexes.get(succ)]);
+            }
+            closures[i] = closure;
+        }
+    }
+
+    /**
+     * @return true if {@code target} is reachable from {@code source}.
+     * Each node of the graph is reachable from itself.
+     */
+    public boolean isReachable(N source, N target) {
+        Integer s = sccIndexes.get(source);
+        Integer t = sccIndexes.get(target);
+        return s != null && t != null && closures[s].get(t);
+    }
+}
@@ -22,9 +22,21 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.ResultProcessor;
 import pascal.taie.analysis.Tests;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
 
 public class InterCPTest {
 
@@ -38,6 +50,82 @@ public class InterCPTest {
         );
     }
 
+    /**
+     * Runs the IDE-style summary solver, which is expected to produce
+     * the same results as the solver on ICFG.
+     */
+    void testSummary(String inputClass) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;summary:true",
+                "-a", "cg=algorithm:cha");
+    }
+
+    @Test
+    public void testLazyICFG() {
+        Tests.test("Example", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha",
+                "-a", "icfg=lazy:true");
+    }
+
+    /**
+     * log() receives no constant and returns nothing, thus the on-demand
+     * solver defers it and its callee helper(). Their local constants
+     * must still be the same as the ones computed on the whole ICFG.
+     */
+    @Test
+    public void testLazyCallees() {
+        String cp = InterConstantPropagation.ID + "=edge-refine:false;alias-aware:false";
+        String file = "output/LazyCallees-eager-inter-constprop.txt";
+        String process = String.format("%s=analyses:[%s];action:%%s;file:%s",
+                ResultProcessor.ID, InterConstantPropagation.ID, file);
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", "LazyCallees",
+                "-a", "cg=algorithm:cha", "-a", cp,
+                "-a", String.format(process, "dump")});
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", "LazyCallees",
+                "-a", "cg=algorithm:cha", "-a", "icfg=lazy:true", "-a", cp,
+                "-a", String.format(process, "compare")});
+        Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
+        Assert.assertTrue("Mismatches of on-demand ICFG:\n" +
+                String.join("\n", mismatches), mismatches.isEmpty());
+        LazyICFG icfg = World.get().getResult(ICFGBuilder.ID);
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        callGraph.reachableMethods()
+                .filter(method -> method.getDeclaringClass().isApplication())
+                .forEach(method -> Assert.assertTrue(method.toString(),
+                        icfg.isExpanded(method)));
+    }
+
+    /**
+     * Runs the solver which solves the SCCs of the call graph in parallel
+     * on every test case, which is expected to produce the same results
+     * as the sequential solver.
+     */
+    void testParallel(String inputClass) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;parallel:true",
+                "-a", "cg=algorithm:cha");
+    }
+
+    @Test
+    public void testParallelExample() {
+        testParallel("Example");
+    }
+
+    @Test
+    public void testParallelReference() {
+        testParallel("Reference");
+    }
+
+    @Test
+    public void testParallelFibonacci() {
+        testParallel("Fibonacci");
+    }
+
+    @Test
+    public void testParallelMultiIntArgs() {
+        testParallel("MultiIntArgs");
+    }
+
     @Test
     public void testExample() {
         test("Example");
@@ -57,4 +145,24 @@ public class InterCPTest {
     public void testMultiIntArgs() {
         test("MultiIntArgs");
     }
+
+    @Test
+    public void testSummaryExample() {
+        testSummary("Example");
+    }
+
+    @Test
+    public void testSummaryReference() {
+        testSummary("Reference");
+    }
+
+    @Test
+    public void testSummaryFibonacci() {
+        testSummary("Fibonacci");
+    }
+
+    @Test
+    public void testSummaryMultiIntArgs() {
+        testSummary("MultiIntArgs");
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+
+import java.util.List;
+
+public class LinearFunctionTest {
+
+    @Test
+    public void testAddAndScale() {
+        LinearFunction f = LinearFunction.makeLinear(0, 2, 1);
+        Assert.assertEquals(LinearFunction.makeLinear(0, 2, 4),
+                f.add(LinearFunction.makeConstant(3)));
+        Assert.assertEquals(LinearFunction.makeLinear(0, 3, 1),
+                f.add(LinearFunction.makeLinear(0, 1, 0)));
+        // the sum of functions of different parameters is not linear
+        Assert.assertNull(f.add(LinearFunction.makeLinear(1, 1, 0)));
+        // x - x is the constant 0
+        Assert.assertEquals(LinearFunction.makeConstant(0),
+                f.add(f.scale(-1)));
+        Assert.assertNull(LinearFunction.getNAC().scale(2));
+    }
+
+    @Test
+    public void testMeet() {
+        LinearFunction f = LinearFunction.makeLinear(0, 1, 1);
+        Assert.assertEquals(f, f.meet(LinearFunction.getUndef()));
+        Assert.assertEquals(f, LinearFunction.getUndef().meet(f));
+        Assert.assertTrue(f.meet(LinearFunction.makeConstant(1)).isNAC());
+    }
+
+    @Test
+    public void testComposeAndApply() {
+        // f(p0, p1) = 3 * p1 + 2
+        LinearFunction f = LinearFunction.makeLinear(1, 3, 2);
+        Assert.assertEquals(LinearFunction.makeConstant(14), f.compose(List.of(
+                LinearFunction.getNAC(), LinearFunction.makeConstant(4))));
+        Assert.assertEquals(LinearFunction.makeLinear(0, 6, 5), f.compose(List.of(
+                LinearFunction.getNAC(), LinearFunction.makeLinear(0, 2, 1))));
+        Assert.assertTrue(f.compose(List.of(LinearFunction.makeConstant(1),
+                LinearFunction.getNAC())).isNAC());
+        Assert.assertEquals(Value.makeConstant(11),
+                f.apply(List.of(Value.getNAC(), Value.makeConstant(3))));
+        Assert.assertTrue(f.apply(List.of(Value.makeConstant(3),
+                Value.getNAC())).isNAC());
+        Assert.assertTrue(f.apply(List.of(Value.getNAC(),
+                Value.getUndef())).isUndef());
+    }
+}
@@ -22,8 +22,24 @@
 
 package pascal.taie.analysis.graph.callgraph.cha;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.callgraph.CallGraphSerializer;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CHATest {
     
@@ -50,4 +66,116 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    @Test
+    public void testFrozenCallGraph() {
+        Tests.test("VirtualCall", "src/test/resources/cha/", "cg",
+                "algorithm:cha;freeze:true");
+    }
+
+    @Test
+    public void testCachedCallGraph() {
+        File cacheFile = new File("output/VirtualCall-cg.bin");
+        String opts = "algorithm:cha;cache:" + cacheFile;
+        cacheFile.delete();
+        // the first run builds the call graph and saves it
+        Tests.test("VirtualCall", "src/test/resources/cha/", "cg", opts);
+        Assert.assertTrue(cacheFile.exists());
+        long stamp = 1_000_000_000_000L;
+        Assert.assertTrue(cacheFile.setLastModified(stamp));
+        // the second run loads it, and leaves the file untouched
+        Tests.test("VirtualCall", "src/test/resources/cha/", "cg", opts);
+        Assert.assertEquals(stamp, cacheFile.lastModified());
+    }
+
+    @Test
+    public void testStaleCachedCallGraph() {
+        File cacheFile = new File("output/VirtualCall-cg.bin");
+        String opts = "algorithm:cha;cache:" + cacheFile;
+        test("VirtualCall");
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        // a file saved for another program is not loaded, so the call
+        // graph is built again and the file is overwritten
+        CallGraphSerializer.save(callGraph, "stale", cacheFile);
+        long stamp = 1_000_000_000_000L;
+        Assert.assertTrue(cacheFile.setLastModified(stamp));
+        Tests.test("VirtualCall", "src/test/resources/cha/", "cg", opts);
+        Assert.assertNotEquals(stamp, cacheFile.lastModified());
+        Assert.assertNotNull(CallGraphSerializer.load(
+                CallGraphSerializer.getFingerprint("cha"), cacheFile));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        test("VirtualCall");
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        File file = new File("output/VirtualCall-cg-saved.bin");
+        String fingerprint = CallGraphSerializer.getFingerprint("cha");
+        CallGraphSerializer.save(callGraph, fingerprint, file);
+        CallGraph<Invoke, JMethod> loaded = CallGraphSerializer.load(fingerprint, file);
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(toSet(callGraph.entryMethods()),
+                toSet(loaded.entryMethods()));
+        Assert.assertEquals(toSet(callGraph.reachableMethods()),
+                toSet(loaded.reachableMethods()));
+        Assert.assertEquals(toSet(callGraph.reachableMethods()
+                        .flatMap(callGraph::callSitesIn)
+                        .flatMap(callGraph::edgesOutOf)),
+                toSet(loaded.reachableMethods()
+                        .flatMap(loaded::callSitesIn)
+                        .flatMap(loaded::edgesOutOf)));
+        // the fingerprint covers the call graph algorithm
+        Assert.assertNotEquals(fingerprint, CallGraphSerializer.getFingerprint("pta"));
+        Assert.assertNull(CallGraphSerializer.load(
+                CallGraphSerializer.getFingerprint("pta"), file));
+    }
+
+    private static Set<String> toSet(Stream<?> stream) {
+        return stream.map(Object::toString).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testLazyCallGraph() {
+        test("VirtualCall");
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        List<JMethod> methods = callGraph.reachableMethods()
+                .filter(m -> !m.isAbstract())
+                .toList();
+        DefaultCallGraph lazy = new DefaultCallGraph(true);
+        methods.forEach(lazy::addReachableMethod);
+        // no call sites are indexed before they are queried
+        methods.forEach(m -> Assert.assertFalse(lazy.isIndexed(m)));
+        for (JMethod method : methods) {
+            Assert.assertEquals(callGraph.getCallSitesIn(method),
+                    lazy.getCallSitesIn(method));
+            Assert.assertTrue(lazy.isIndexed(method));
+        }
+    }
+
+    @Test
+    public void testReachability() {
+        test("StaticCall");
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        Map<String, JMethod> methods = callGraph.reachableMethods()
+                .filter(m -> m.getDeclaringClass().isApplication())
+                .collect(Collectors.toMap(JMethod::getName, Function.identity()));
+        JMethod main = methods.get("main");
+        JMethod foo = methods.get("foo");
+        JMethod bar = methods.get("bar");
+        JMethod baz = methods.get("baz");
+        JMethod qux = methods.get("qux");
+        // A.baz() and B.qux() call each other, i.e., they are in one SCC
+        Assert.assertTrue(callGraph.isReachable(baz, qux));
+        Assert.assertTrue(callGraph.isReachable(qux, baz));
+        Assert.assertTrue(callGraph.isReachable(bar, bar));
+        // across SCCs
+        Assert.assertTrue(callGraph.isReachable(main, qux));
+        Assert.assertTrue(callGraph.isReachable(main, bar));
+        Assert.assertTrue(callGraph.isReachable(foo, bar));
+        // unreachable pairs
+        Assert.assertFalse(callGraph.isReachable(bar, foo));
+        Assert.assertFalse(callGraph.isReachable(qux, main));
+        Assert.assertFalse(callGraph.isReachable(foo, baz));
+        Assert.assertFalse(callGraph.isReachable(baz, bar));
+    }
 }
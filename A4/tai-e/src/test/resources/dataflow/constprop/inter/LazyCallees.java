@@ -0,0 +1,26 @@
+class LazyCallees {
+
+    static void main(String[] args) {
+        int a = 1;
+        log();
+        int b = inc(a);
+        int c = ten();
+    }
+
+    static void log() {
+        int x = 2;
+        helper(x);
+    }
+
+    static void helper(int x) {
+        int y = x + 1;
+    }
+
+    static int inc(int x) {
+        return x + 1;
+    }
+
+    static int ten() {
+        return 10;
+    }
+}
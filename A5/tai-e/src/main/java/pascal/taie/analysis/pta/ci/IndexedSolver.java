@@ -0,0 +1,457 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.CastExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StmtVisitor;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.MapIDProvider;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Variant of {@link Solver} whose core works on integers.
+ * <p>
+ * Each pointer and object gets a dense index when it is created, i.e.,
+ * {@link Pointer#getIndex()} for pointers, and an index given by
+ * a {@link MapIDProvider} for objects. The successors of pointers in PFG
+ * are stored in growable int arrays, and the points-to sets are bitsets
+ * of object indexes, thus propagating objects along the PFG does not
+ * hash pointers or objects. The type filters of the edges are kept in
+ * a side table keyed by the encoded edges, so that the edges without
+ * filter, i.e., most edges, cost nothing extra. The results are
+ * converted to {@link PointsToSet}s after the analysis finishes.
+ */
+class IndexedSolver {
+
+    private final HeapModel heapModel;
+
+    private DefaultCallGraph callGraph;
+
+    private PointerFlowGraph pointerFlowGraph;
+
+    private StmtProcessor stmtProcessor;
+
+    /**
+     * Gives each object an index.
+     */
+    private final MapIDProvider<Obj> objIds = new MapIDProvider<>();
+
+    /**
+     * Objects indexed by their indexes.
+     */
+    private final List<Obj> objs = new ArrayList<>();
+
+    /**
+     * Successors of each pointer in PFG.
+     */
+    private int[][] succs = new int[0][];
+
+    private int[] succCounts = new int[0];
+
+    /**
+     * Edges of PFG, each of which is encoded as (source << 32 | target).
+     * It is used to avoid adding duplicate edges.
+     */
+    private final Set<Long> edges = Sets.newSet();
+
+    /**
+     * Type filters of the PFG edges, keyed by the encoded edges.
+     * Only the objects whose types are subtypes of any of the filters
+     * can flow along the edge. The edges absent in the map have no filter.
+     */
+    private final Map<Long, Set<Type>> edgeFilters = Maps.newMap();
+
+    private TypeSystem typeSystem;
+
+    /**
+     * Cache of subtype checks for type filtering.
+     */
+    private TwoKeyMap<Type, Type, Boolean> subtypeCache;
+
+    /**
+     * Points-to sets of the pointers.
+     */
+    private BitSet[] pointsToSets = new BitSet[0];
+
+    /**
+     * Objects to be propagated to each pointer; a pointer is in
+     * {@link #workList} iff its pending set is not null.
+     */
+    private BitSet[] pending = new BitSet[0];
+
+    private int[] workList = new int[16];
+
+    private int head, tail, size;
+
+    IndexedSolver(HeapModel heapModel) {
+        this.heapModel = heapModel;
+    }
+
+    void solve() {
+        initialize();
+        analyze();
+    }
+
+    private void initialize() {
+        pointerFlowGraph = new PointerFlowGraph();
+        callGraph = new DefaultCallGraph();
+        stmtProcessor = new StmtProcessor();
+        typeSystem = World.get().getTypeSystem();
+        subtypeCache = Maps.newTwoKeyMap();
+        JMethod main = World.get().getMainMethod();
+        callGraph.addEntryMethod(main);
+        addReachable(main);
+    }
+
+    private void addReachable(JMethod method) {
+        if (callGraph.addReachableMethod(method)) {
+            for (Stmt stmt : method.getIR().getStmts()) {
+                stmt.accept(stmtProcessor);
+            }
+        }
+    }
+
+    private class StmtProcessor implements StmtVisitor<Void> {
+
+        @Override
+        public Void visit(New stmt) {
+            addObject(varIndex(stmt.getLValue()), heapModel.getObj(stmt));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(varIndex(stmt.getRValue()), varIndex(stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(Cast stmt) {
+            CastExp cast = stmt.getRValue();
+            if (cast.getCastType() instanceof ReferenceType) {
+                addPFGEdge(varIndex(cast.getValue()),
+                        varIndex(stmt.getLValue()), cast.getCastType());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(staticFieldIndex(stmt.getFieldRef().resolve()),
+                        varIndex(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(varIndex(stmt.getRValue()),
+                        staticFieldIndex(stmt.getFieldRef().resolve()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = CallGraphs.resolveCallee(null, stmt);
+                processCallEdge(stmt, callee, CallKind.STATIC);
+            }
+            return null;
+        }
+    }
+
+    private void processCallEdge(Invoke callSite, JMethod callee, CallKind kind) {
+        if (callGraph.addEdge(new Edge<>(kind, callSite, callee))) {
+            addReachable(callee);
+            List<Var> params = callee.getIR().getParams();
+            for (int i = 0; i < params.size(); ++i) {
+                Var param = params.get(i);
+                addPFGEdge(varIndex(callSite.getInvokeExp().getArg(i)),
+                        varIndex(param), param.getType());
+            }
+            if (callSite.getResult() != null) {
+                int result = varIndex(callSite.getResult());
+                for (Var ret : callee.getIR().getReturnVars()) {
+                    addPFGEdge(varIndex(ret), result);
+                }
+            }
+        }
+    }
+
+    private void analyze() {
+        while (size > 0) {
+            int pointer = pollPointer();
+            BitSet delta = pending[pointer];
+            pending[pointer] = null;
+            BitSet pts = pointsToSets[pointer];
+            delta.andNot(pts);
+            if (delta.isEmpty()) {
+                continue;
+            }
+            pts.or(delta);
+            int[] pointerSuccs = succs[pointer];
+            for (int i = 0; i < succCounts[pointer]; ++i) {
+                int succ = pointerSuccs[i];
+                Set<Type> filters = edgeFilters.get(edgeOf(pointer, succ));
+                addPending(succ, filters == null ? delta : filter(delta, filters));
+            }
+            if (pointerFlowGraph.getPointer(pointer) instanceof VarPtr varPtr) {
+                Var var = varPtr.getVar();
+                for (int o = delta.nextSetBit(0); o >= 0; o = delta.nextSetBit(o + 1)) {
+                    processInstanceAccesses(var, objs.get(o));
+                }
+            }
+        }
+    }
+
+    private void processInstanceAccesses(Var var, Obj obj) {
+        for (LoadField load : var.getLoadFields()) {
+            addPFGEdge(instanceFieldIndex(obj, load.getFieldRef().resolve()),
+                    varIndex(load.getLValue()));
+        }
+        for (StoreField store : var.getStoreFields()) {
+            addPFGEdge(varIndex(store.getRValue()),
+                    instanceFieldIndex(obj, store.getFieldRef().resolve()));
+        }
+        for (LoadArray load : var.getLoadArrays()) {
+            addPFGEdge(arrayIndexIndex(obj), varIndex(load.getLValue()));
+        }
+        for (StoreArray store : var.getStoreArrays()) {
+            addPFGEdge(varIndex(store.getRValue()), arrayIndexIndex(obj));
+        }
+        for (Invoke callSite : var.getInvokes()) {
+            Type type = obj.getType();
+            JMethod callee = CallGraphs.resolveCallee(type, callSite);
+            addObject(varIndex(callee.getIR().getThis()), obj);
+            processCallEdge(callSite, callee, CallGraphs.getCallKind(callSite));
+        }
+    }
+
+    // ---------- pointers and objects ----------
+
+    private int varIndex(Var var) {
+        return ensurePointer(pointerFlowGraph.getVarPtr(var));
+    }
+
+    private int staticFieldIndex(JField field) {
+        return ensurePointer(pointerFlowGraph.getStaticField(field));
+    }
+
+    private int instanceFieldIndex(Obj base, JField field) {
+        return ensurePointer(pointerFlowGraph.getInstanceField(base, field));
+    }
+
+    private int arrayIndexIndex(Obj array) {
+        return ensurePointer(pointerFlowGraph.getArrayIndex(array));
+    }
+
+    /**
+     * Ensures that the arrays of this solver can hold given pointer.
+     *
+     * @return the index of the pointer.
+     */
+    private int ensurePointer(Pointer pointer) {
+        int index = pointer.getIndex();
+        if (index >= pointsToSets.length) {
+            int newLength = Math.max(index + 1, pointsToSets.length * 2);
+            succs = Arrays.copyOf(succs, newLength);
+            succCounts = Arrays.copyOf(succCounts, newLength);
+            pointsToSets = Arrays.copyOf(pointsToSets, newLength);
+            pending = Arrays.copyOf(pending, newLength);
+        }
+        if (pointsToSets[index] == null) {
+            pointsToSets[index] = new BitSet();
+        }
+        return index;
+    }
+
+    private int objIndex(Obj obj) {
+        int index = objIds.getID(obj);
+        if (index == objs.size()) {
+            objs.add(obj);
+        }
+        return index;
+    }
+
+    private void addObject(int pointer, Obj obj) {
+        BitSet objSet = new BitSet();
+        objSet.set(objIndex(obj));
+        addPending(pointer, objSet);
+    }
+
+    // ---------- PFG ----------
+
+    private static long edgeOf(int source, int target) {
+        return ((long) source << 32) | target;
+    }
+
+    private void addPFGEdge(int source, int target) {
+        addPFGEdge(source, target, null);
+    }
+
+    /**
+     * Adds an edge (source -> target) with type filter to the PFG.
+     * If the edge already exists with other filters, then the filter is
+     * added to them; adding the edge without filter removes its filters.
+     * The objects that can newly flow along the edge are propagated
+     * to the target.
+     *
+     * @param filter the type filter of the edge, or null if no filter.
+     */
+    private void addPFGEdge(int source, int target, Type filter) {
+        long edge = edgeOf(source, target);
+        if (!edges.add(edge)) {
+            Set<Type> filters = edgeFilters.get(edge);
+            if (filters == null) { // the edge has no filter
+                return;
+            }
+            if (filter == null) {
+                edgeFilters.remove(edge);
+                addPending(target, pointsToSets[source]);
+            } else if (filters.add(filter)) {
+                addPending(target, filter(pointsToSets[source], Set.of(filter)));
+            }
+            return;
+        }
+        if (filter != null) {
+            Set<Type> filters = Sets.newHybridSet();
+            filters.add(filter);
+            edgeFilters.put(edge, filters);
+        }
+        int[] sourceSuccs = succs[source];
+        int count = succCounts[source];
+        if (sourceSuccs == null) {
+            sourceSuccs = succs[source] = new int[4];
+        } else if (count == sourceSuccs.length) {
+            sourceSuccs = succs[source] = Arrays.copyOf(sourceSuccs, count * 2);
+        }
+        sourceSuccs[count] = target;
+        succCounts[source] = count + 1;
+        addPending(target, filter == null ? pointsToSets[source]
+                : filter(pointsToSets[source], Set.of(filter)));
+    }
+
+    /**
+     * @return the objects in objSet whose types are subtypes of any of
+     * given types.
+     */
+    private BitSet filter(BitSet objSet, Set<Type> types) {
+        BitSet result = new BitSet();
+        for (int o = objSet.nextSetBit(0); o >= 0; o = objSet.nextSetBit(o + 1)) {
+            Type objType = objs.get(o).getType();
+            for (Type type : types) {
+                if (isSubtype(type, objType)) {
+                    result.set(o);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isSubtype(Type supertype, Type subtype) {
+        return subtypeCache.computeIfAbsent(supertype, subtype,
+                typeSystem::isSubtype);
+    }
+
+    // ---------- work list ----------
+
+    private void addPending(int pointer, BitSet objSet) {
+        if (objSet.isEmpty()) {
+            return;
+        }
+        if (pending[pointer] == null) {
+            pending[pointer] = (BitSet) objSet.clone();
+            offerPointer(pointer);
+        } else {
+            pending[pointer].or(objSet);
+        }
+    }
+
+    private void offerPointer(int pointer) {
+        if (size == workList.length) {
+            int[] newWorkList = new int[size * 2];
+            for (int i = 0; i < size; ++i) {
+                newWorkList[i] = workList[(head + i) % size];
+            }
+            workList = newWorkList;
+            head = 0;
+            tail = size;
+        }
+        workList[tail] = pointer;
+        tail = (tail + 1) % workList.length;
+        ++size;
+    }
+
+    private int pollPointer() {
+        int pointer = workList[head];
+        head = (head + 1) % workList.length;
+        --size;
+        return pointer;
+    }
+
+    CIPTAResult getResult() {
+        for (int i = 0; i < pointerFlowGraph.getNumberOfPointers(); ++i) {
+            PointsToSet result = pointerFlowGraph.getPointer(i).getPointsToSet();
+            BitSet pts = i < pointsToSets.length ? pointsToSets[i] : null;
+            if (pts != null) {
+                pts.stream().forEach(o -> result.addObject(objs.get(o)));
+            }
+        }
+        return new CIPTAResult(pointerFlowGraph, callGraph);
+    }
+}
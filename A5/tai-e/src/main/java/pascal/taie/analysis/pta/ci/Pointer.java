@@ -22,16 +22,41 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.util.Indexable;
+
 /**
  * Represents pointers in pointer analysis and nodes in pointer flow graph.
  *
  * @see PointerFlowGraph
  */
-abstract class Pointer {
+abstract class Pointer implements Indexable {
+
+    private PointsToSet pointsToSet = new PointsToSet();
+
+    /**
+     * Index of this pointer in the PFG, which is assigned
+     * when the pointer is created.
+     */
+    private int index = -1;
+
+    void setIndex(int index) {
+        this.index = index;
+    }
 
-    private final PointsToSet pointsToSet = new PointsToSet();
+    @Override
+    public int getIndex() {
+        return index;
+    }
 
     PointsToSet getPointsToSet() {
         return pointsToSet;
     }
+
+    /**
+     * Sets the points-to set of this pointer, which is used to share
+     * one points-to set among the pointers merged in the PFG.
+     */
+    void setPointsToSet(PointsToSet pointsToSet) {
+        this.pointsToSet = pointsToSet;
+    }
 }
@@ -29,6 +29,7 @@ import pascal.taie.analysis.graph.callgraph.*;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.CastExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.*;
@@ -36,10 +37,17 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.language.type.ReferenceType;
 import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.TwoKeyMap;
 
 import java.lang.reflect.Array;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 class Solver {
 
@@ -53,6 +61,20 @@ class Solver {
 
     private WorkList workList;
 
+    /**
+     * PFG edges which have been checked by lazy cycle detection.
+     */
+    private MultiMap<Pointer, Pointer> checkedEdges;
+
+    private VarSubstitution varSubstitution;
+
+    private TypeSystem typeSystem;
+
+    /**
+     * Cache of subtype checks for type filtering.
+     */
+    private TwoKeyMap<Type, Type, Boolean> subtypeCache;
+
     private StmtProcessor stmtProcessor;
 
     private ClassHierarchy hierarchy;
@@ -74,6 +96,10 @@ class Solver {
      */
     private void initialize() {
         workList = new WorkList();
+        checkedEdges = Maps.newMultiMap();
+        varSubstitution = new VarSubstitution();
+        typeSystem = World.get().getTypeSystem();
+        subtypeCache = Maps.newTwoKeyMap();
         pointerFlowGraph = new PointerFlowGraph();
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
@@ -96,6 +122,29 @@ class Solver {
         }
     }
 
+    /**
+     * Merges the Var nodes created since the last call with the nodes
+     * of the variables found equivalent by {@link VarSubstitution}.
+     * The nodes are merged only after both of them have been created,
+     * so that no node is created for a variable which is never used
+     * by the analysis, and the variables of unreachable methods
+     * are not merged.
+     */
+    private void substituteVars() {
+        VarPtr varPtr;
+        while ((varPtr = pointerFlowGraph.pollNewVarPtr()) != null) {
+            Var var = varPtr.getVar();
+            Var rep = varSubstitution.getRepresentative(var);
+            if (!rep.equals(var)) {
+                Pointer repPtr = pointerFlowGraph.getRepOf(pointerFlowGraph.getVarPtr(rep));
+                Pointer ptr = pointerFlowGraph.getRepOf(varPtr);
+                if (!repPtr.equals(ptr)) {
+                    collapse(repPtr, Set.of(repPtr, ptr));
+                }
+            }
+        }
+    }
+
     /**
      * Processes statements in new reachable methods.
      */
@@ -118,6 +167,17 @@ class Solver {
             return StmtVisitor.super.visit(stmt);
         }
 
+        @Override
+        public Void visit(Cast stmt) {
+            CastExp cast = stmt.getRValue();
+            if (cast.getCastType() instanceof ReferenceType) {
+                Pointer source = pointerFlowGraph.getVarPtr(cast.getValue());
+                Pointer target = pointerFlowGraph.getVarPtr(stmt.getLValue());
+                addPFGEdge(source, target, cast.getCastType());
+            }
+            return StmtVisitor.super.visit(stmt);
+        }
+
         @Override
         public Void visit(LoadField stmt) {
             if (!stmt.isStatic()){
@@ -157,8 +217,9 @@ class Solver {
     private void passArgs(JMethod method, Invoke stmt){
         for (int i = 0; i < method.getParamCount(); i++) {
             VarPtr source = pointerFlowGraph.getVarPtr(stmt.getInvokeExp().getArg(i));
-            VarPtr target = pointerFlowGraph.getVarPtr(method.getIR().getParam(i));
-            addPFGEdge(source, target);
+            Var param = method.getIR().getParam(i);
+            VarPtr target = pointerFlowGraph.getVarPtr(param);
+            addPFGEdge(source, target, param.getType());
         }
         if (stmt.getResult() == null)
             return;
@@ -173,12 +234,60 @@ class Solver {
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
+        addPFGEdge(source, target, null);
+    }
+
+    /**
+     * Adds an edge "source -> target" with type filter to the PFG.
+     *
+     * @param filter the type filter of the edge, or null if no filter.
+     */
+    private void addPFGEdge(Pointer source, Pointer target, Type filter) {
         // TODO - finish me
-        if (pointerFlowGraph.addEdge(source, target)){
-            if (!source.getPointsToSet().isEmpty()){
-                workList.addEntry(target, source.getPointsToSet());
+        source = pointerFlowGraph.getRepOf(source);
+        target = pointerFlowGraph.getRepOf(target);
+        if (source.equals(target)) { // the edge is inside a merged cycle
+            return;
+        }
+        if (pointerFlowGraph.addEdge(source, target, filter)){
+            var pts = filter(source.getPointsToSet(), filter);
+            if (!pts.isEmpty()){
+                workList.addEntry(target, pts);
+            }
+        }
+    }
+
+    /**
+     * @return the objects in pts whose types are subtypes of given type.
+     * If type is null, then returns pts itself.
+     */
+    private PointsToSet filter(PointsToSet pts, Type type) {
+        return type == null ? pts : filter(pts, Set.of(type));
+    }
+
+    /**
+     * @return the objects in pts whose types are subtypes of any of
+     * given types. If types is null, then returns pts itself.
+     */
+    private PointsToSet filter(PointsToSet pts, Set<Type> types) {
+        if (types == null) {
+            return pts;
+        }
+        var result = new PointsToSet();
+        for (var obj : pts) {
+            for (var type : types) {
+                if (isSubtype(type, obj.getType())) {
+                    result.addObject(obj);
+                    break;
+                }
             }
         }
+        return result;
+    }
+
+    private boolean isSubtype(Type supertype, Type subtype) {
+        return subtypeCache.computeIfAbsent(supertype, subtype,
+                typeSystem::isSubtype);
     }
 
     /**
@@ -186,37 +295,52 @@ class Solver {
      */
     private void analyze() {
         // TODO - finish me
+        substituteVars();
         while (!workList.isEmpty()){
             var entry = workList.pollEntry();
-            var n = entry.pointer();
+            var n = pointerFlowGraph.getRepOf(entry.pointer());
             var pts = entry.pointsToSet();
             var delta = propagate(n, pts);
-            if (n instanceof VarPtr varPtr){
-                for (var obj : delta.getObjects()){
-                    for (var loadField : varPtr.getVar().getLoadFields()){
-                        var target = pointerFlowGraph.getVarPtr(loadField.getLValue());
-                        JField jField = loadField.getFieldRef().resolve();
-                        var source = pointerFlowGraph.getInstanceField(obj, jField);
-                        addPFGEdge(source, target);
-                    }
-                    for (var storeField : varPtr.getVar().getStoreFields()){
-                        var source = pointerFlowGraph.getVarPtr(storeField.getRValue());
-                        JField jField = storeField.getFieldRef().resolve();
-                        var target = pointerFlowGraph.getInstanceField(obj, jField);
-                        addPFGEdge(source, target);
-                    }
-                    for (var loadArray : varPtr.getVar().getLoadArrays()){
-                        var target = pointerFlowGraph.getVarPtr(loadArray.getLValue());
-                        var source = pointerFlowGraph.getArrayIndex(obj);
-                        addPFGEdge(source, target);
-                    }
-                    for (var storeArray : varPtr.getVar().getStoreArrays()){
-                        var source = pointerFlowGraph.getVarPtr(storeArray.getRValue());
-                        var target = pointerFlowGraph.getArrayIndex(obj);
-                        addPFGEdge(source, target);
-                    }
-                    processCall(varPtr.getVar(), obj);
+            if (!delta.isEmpty()) {
+                processNewObjects(n, delta);
+                for (var member : pointerFlowGraph.getMembersOf(n)) {
+                    processNewObjects(member, delta);
+                }
+            }
+            substituteVars();
+        }
+    }
+
+    /**
+     * Processes the objects newly pointed to by a pointer, i.e.,
+     * the field/array accesses and instance calls on the variable.
+     */
+    private void processNewObjects(Pointer pointer, PointsToSet delta) {
+        if (pointer instanceof VarPtr varPtr){
+            for (var obj : delta.getObjects()){
+                for (var loadField : varPtr.getVar().getLoadFields()){
+                    var target = pointerFlowGraph.getVarPtr(loadField.getLValue());
+                    JField jField = loadField.getFieldRef().resolve();
+                    var source = pointerFlowGraph.getInstanceField(obj, jField);
+                    addPFGEdge(source, target);
+                }
+                for (var storeField : varPtr.getVar().getStoreFields()){
+                    var source = pointerFlowGraph.getVarPtr(storeField.getRValue());
+                    JField jField = storeField.getFieldRef().resolve();
+                    var target = pointerFlowGraph.getInstanceField(obj, jField);
+                    addPFGEdge(source, target);
+                }
+                for (var loadArray : varPtr.getVar().getLoadArrays()){
+                    var target = pointerFlowGraph.getVarPtr(loadArray.getLValue());
+                    var source = pointerFlowGraph.getArrayIndex(obj);
+                    addPFGEdge(source, target);
+                }
+                for (var storeArray : varPtr.getVar().getStoreArrays()){
+                    var source = pointerFlowGraph.getVarPtr(storeArray.getRValue());
+                    var target = pointerFlowGraph.getArrayIndex(obj);
+                    addPFGEdge(source, target);
                 }
+                processCall(varPtr.getVar(), obj);
             }
         }
     }
@@ -233,17 +357,111 @@ class Solver {
         }
         var pt_n = pointer.getPointsToSet();
         for (var pt : pointsToSet){
-            if (pt_n.contains(pt))
-                continue;
-            pointer.getPointsToSet().addObject(pt);
-            delta.addObject(pt);
+            if (pt_n.addObject(pt)) {
+                delta.addObject(pt);
+            }
         }
-        for (var pt : pointerFlowGraph.getSuccsOf(pointer)){
-            workList.addEntry(pt, delta);
+        if (delta.isEmpty()) {
+            return delta;
+        }
+        // copy the successors as merging cycles modifies them
+        for (var succ : List.copyOf(pointerFlowGraph.getSuccsOf(pointer))){
+            var t = pointerFlowGraph.getRepOf(succ);
+            if (t.equals(pointer)) {
+                continue;
+            }
+            var filters = pointerFlowGraph.getFiltersOf(pointer, succ);
+            if (filters != null) {
+                var pts = filter(delta, filters);
+                if (!pts.isEmpty()) {
+                    workList.addEntry(t, pts);
+                }
+                continue;
+            }
+            if (isCycleCandidate(pointer, t, delta)) {
+                Set<Pointer> cycle = pointerFlowGraph.findCycle(pointer, t);
+                if (!cycle.isEmpty()) {
+                    collapse(pointer, cycle);
+                    continue;
+                }
+            }
+            workList.addEntry(t, delta);
         }
         return delta;
     }
 
+    /**
+     * Lazy cycle detection: the pointers on a PFG cycle end up with
+     * the same points-to set, so a cycle is only searched from edge
+     * source -> target when pt(target) has already caught up with
+     * pt(source) (excluding the delta being propagated). Each edge is
+     * checked at most once, and the edges with type filters are never
+     * checked.
+     */
+    private boolean isCycleCandidate(Pointer source, Pointer target,
+                                     PointsToSet delta) {
+        var sourcePts = source.getPointsToSet();
+        var targetPts = target.getPointsToSet();
+        int oldSize = sourcePts.size() - delta.size();
+        if (oldSize == 0 || targetPts.size() < oldSize ||
+                checkedEdges.contains(source, target)) {
+            return false;
+        }
+        for (var obj : sourcePts) {
+            if (!delta.contains(obj) && !targetPts.contains(obj)) {
+                return false;
+            }
+        }
+        checkedEdges.put(source, target);
+        return true;
+    }
+
+    /**
+     * Merges the pointers on a PFG cycle (or other equivalent pointers)
+     * into rep. All merged pointers share the points-to set of rep, so that
+     * the points-to set of each variable is still available after
+     * the analysis.
+     */
+    private void collapse(Pointer rep, Set<Pointer> cycle) {
+        var union = new PointsToSet();
+        for (var pointer : cycle) {
+            pointer.getPointsToSet().forEach(union::addObject);
+        }
+        // objects that each merged pointer (and its members) has not seen
+        Map<Pointer, PointsToSet> diffs = Maps.newMap();
+        Map<Pointer, List<Pointer>> oldMembers = Maps.newMap();
+        for (var pointer : cycle) {
+            var diff = new PointsToSet();
+            var pts = pointer.getPointsToSet();
+            for (var obj : union) {
+                if (!pts.contains(obj)) {
+                    diff.addObject(obj);
+                }
+            }
+            diffs.put(pointer, diff);
+            oldMembers.put(pointer,
+                    List.copyOf(pointerFlowGraph.getMembersOf(pointer)));
+        }
+        pointerFlowGraph.merge(rep, cycle);
+        var repPts = rep.getPointsToSet();
+        union.forEach(repPts::addObject);
+        for (var member : pointerFlowGraph.getMembersOf(rep)) {
+            member.setPointsToSet(repPts);
+        }
+        for (var succ : pointerFlowGraph.getSuccsOf(rep)) {
+            var pts = filter(repPts, pointerFlowGraph.getFiltersOf(rep, succ));
+            if (!pts.isEmpty()) {
+                workList.addEntry(succ, pts);
+            }
+        }
+        diffs.forEach((pointer, diff) -> {
+            if (!diff.isEmpty()) {
+                processNewObjects(pointer, diff);
+                oldMembers.get(pointer).forEach(m -> processNewObjects(m, diff));
+            }
+        });
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
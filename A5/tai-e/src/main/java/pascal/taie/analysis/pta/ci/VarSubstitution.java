@@ -0,0 +1,248 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.ir.exp.CastExp;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Variable substitution based on hash-based value numbering (HVN).
+ * <p>
+ * This class assigns a value number to each variable, such that two
+ * variables with the same value number always have the same points-to
+ * set once their methods are reachable. The value number of a variable
+ * is the union of the value numbers of its definitions, where
+ * <ul>
+ *     <li>a copy has the number of its source,</li>
+ *     <li>each allocation site has a number of its own,</li>
+ *     <li>the result of a static call has the number of the return
+ *     variables of the callee,</li>
+ *     <li>the result of an instance call, a field/array load and a cast
+ *     have a number hashed from the invoked method (field, or cast type)
+ *     and the number of the base (or source) variable, as the points-to
+ *     sets of them only depend on the points-to set of the base,</li>
+ *     <li>and other definitions, parameters and {@code this} variables
+ *     have fresh numbers.</li>
+ * </ul>
+ * The numbers of the variables in the application methods are computed
+ * before solving, and the other variables are numbered when their methods
+ * become reachable, so that the IR of the whole library is not built.
+ * Parameters are not numbered from the arguments, as the parameter edges
+ * filter the objects by the declared types.
+ */
+class VarSubstitution {
+
+    private final Map<Var, Integer> numbers = Maps.newMap();
+
+    /**
+     * Map from a hashed definition (or a union of numbers)
+     * to its value number.
+     */
+    private final Map<Object, Integer> keyNumbers = Maps.newMap();
+
+    /**
+     * Fresh numbers given to the variables on cycles of definitions,
+     * which are treated conservatively as opaque.
+     */
+    private final Map<Var, Integer> cycleNumbers = Maps.newMap();
+
+    private final Set<Var> inProgress = Sets.newSet();
+
+    /**
+     * Map from a variable to its definitions.
+     */
+    private final MultiMap<Var, Stmt> defs = Maps.newMultiMap();
+
+    private final Set<JMethod> indexedMethods = Sets.newSet();
+
+    /**
+     * Map from a value number to its representative variable.
+     */
+    private final Map<Integer, Var> reps = Maps.newMap();
+
+    private int counter = 0;
+
+    /**
+     * Numbers the variables of all application methods.
+     */
+    VarSubstitution() {
+        this(World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .toList());
+    }
+
+    /**
+     * Numbers the variables of given methods.
+     */
+    VarSubstitution(Collection<JMethod> methods) {
+        methods.stream()
+                .filter(VarSubstitution::hasIR)
+                .forEach(m -> m.getIR().getVars().forEach(this::getNumber));
+    }
+
+    /**
+     * @return the representative of given variable, i.e., the first
+     * variable passed to this method which has the same value number
+     * as the given one. The variables of primitive types are not
+     * substituted, and represent themselves.
+     */
+    Var getRepresentative(Var var) {
+        if (!(var.getType() instanceof ReferenceType)) {
+            return var;
+        }
+        Var rep = reps.putIfAbsent(getNumber(var), var);
+        return rep != null ? rep : var;
+    }
+
+    private int getNumber(Var var) {
+        Integer number = numbers.get(var);
+        if (number != null) {
+            return number;
+        }
+        if (!inProgress.add(var)) {
+            return cycleNumbers.computeIfAbsent(var, v -> counter++);
+        }
+        index(var.getMethod());
+        Set<Integer> defNumbers = Sets.newHybridSet();
+        if (var.getMethod().getIR().getParams().contains(var)
+                || var.equals(var.getMethod().getIR().getThis())) {
+            defNumbers.add(counter++);
+        }
+        for (Stmt def : defs.get(var)) {
+            defNumbers.add(getNumber(def));
+        }
+        inProgress.remove(var);
+        if (cycleNumbers.containsKey(var)) {
+            number = cycleNumbers.get(var);
+        } else if (defNumbers.size() == 1) {
+            number = defNumbers.iterator().next();
+        } else {
+            // a variable without definitions has a fresh number too
+            number = keyNumbers.computeIfAbsent(defNumbers, n -> counter++);
+        }
+        numbers.put(var, number);
+        return number;
+    }
+
+    /**
+     * @return the value number of given definition.
+     */
+    private int getNumber(Stmt def) {
+        if (def instanceof Copy copy) {
+            return getNumber(copy.getRValue());
+        } else if (def instanceof Cast cast) {
+            CastExp exp = cast.getRValue();
+            return getKeyNumber(List.of(exp.getCastType(),
+                    getNumber(exp.getValue())));
+        } else if (def instanceof LoadField load) {
+            if (load.isStatic()) {
+                return getKeyNumber(load.getFieldRef().resolve());
+            }
+            Var base = ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+            return getKeyNumber(List.of(load.getFieldRef().resolve(),
+                    getNumber(base)));
+        } else if (def instanceof LoadArray load) {
+            return getKeyNumber(List.of(LoadArray.class,
+                    getNumber(load.getArrayAccess().getBase())));
+        } else if (def instanceof Invoke invoke) {
+            return getNumber(invoke);
+        } else {
+            // allocation sites and other definitions
+            return getKeyNumber(def);
+        }
+    }
+
+    private int getNumber(Invoke invoke) {
+        InvokeExp exp = invoke.getInvokeExp();
+        if (invoke.isStatic()) {
+            JMethod callee = CallGraphs.resolveCallee(null, invoke);
+            if (callee != null && hasIR(callee)) {
+                List<Var> retVars = callee.getIR().getReturnVars();
+                if (!retVars.isEmpty()) {
+                    Set<Integer> retNumbers = Sets.newHybridSet();
+                    retVars.forEach(ret -> retNumbers.add(getNumber(ret)));
+                    return retNumbers.size() == 1 ?
+                            retNumbers.iterator().next() :
+                            getKeyNumber(retNumbers);
+                }
+            }
+        } else if (exp instanceof InvokeInstanceExp instanceExp) {
+            // the callees and thus the results only depend on
+            // the receiver objects
+            return getKeyNumber(List.of(exp.getClass(),
+                    invoke.getMethodRef().getDeclaringClass(),
+                    invoke.getMethodRef().getSubsignature(),
+                    getNumber(instanceExp.getBase())));
+        }
+        return getKeyNumber(invoke);
+    }
+
+    private int getKeyNumber(Object key) {
+        return keyNumbers.computeIfAbsent(key, k -> counter++);
+    }
+
+    /**
+     * Collects the definitions of the variables in given method.
+     */
+    private void index(JMethod method) {
+        if (indexedMethods.add(method)) {
+            for (Stmt stmt : method.getIR().getStmts()) {
+                stmt.getDef().ifPresent(def -> {
+                    if (def instanceof Var var) {
+                        defs.put(var, stmt);
+                    }
+                });
+            }
+        }
+    }
+
+    private static boolean hasIR(JMethod method) {
+        return !method.isAbstract() && !method.isNative();
+    }
+}
@@ -22,21 +22,40 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.collection.Maps;
+
 import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Queue;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * The work list keeps at most one pending points-to set for each pointer.
+ * The objects added for a pointer which is already in the work list are
+ * merged into its pending set, so that each pointer is processed once
+ * no matter how many times it is added before being polled.
  */
 class WorkList {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    private final Queue<Pointer> pointers = new ArrayDeque<>();
+
+    private final Map<Pointer, PointsToSet> pendingSets = Maps.newMap();
 
     /**
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        PointsToSet pending = pendingSets.get(pointer);
+        if (pending == null) {
+            pending = new PointsToSet();
+            pendingSets.put(pointer, pending);
+            pointers.add(pointer);
+        }
+        for (Obj obj : pointsToSet) {
+            pending.addObject(obj);
+        }
     }
 
     /**
@@ -44,14 +63,18 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Pointer pointer = pointers.poll();
+        if (pointer == null) {
+            return null;
+        }
+        return new Entry(pointer, pendingSets.remove(pointer));
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return pointers.isEmpty();
     }
 
     /**
@@ -25,10 +25,17 @@ package pascal.taie.analysis.pta;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
 
+import java.util.List;
+
 public class CIPTATest {
 
     static final String DIR = "cipta";
 
+    static final List<String> CASES = List.of(
+            "Example", "Array", "Assign", "Assign2", "StoreLoad", "Call",
+            "InstanceField", "StaticField", "StaticCall", "MergeParam",
+            "CopyCycle", "TypeFilter");
+
     @Test
     public void testExample() {
         Tests.testCIPTA(DIR, "Example");
@@ -78,4 +85,31 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    /**
+     * The variables passed to and returned from id() form a copy cycle,
+     * which is collapsed when a second object flows into it.
+     */
+    @Test
+    public void testCopyCycle() {
+        Tests.testCIPTA(DIR, "CopyCycle");
+    }
+
+    /**
+     * The copy cycle x <-> y reaches a through casts to different types,
+     * so the edge from the merged cycle to a keeps both type filters.
+     */
+    @Test
+    public void testTypeFilter() {
+        Tests.testCIPTA(DIR, "TypeFilter");
+    }
+
+    /**
+     * Runs all test cases with the integer-indexed solver, which is
+     * expected to produce the same results as the default solver.
+     */
+    @Test
+    public void testIndexedSolver() {
+        CASES.forEach(main -> Tests.testCIPTA(DIR, main, "indexed:true"));
+    }
 }
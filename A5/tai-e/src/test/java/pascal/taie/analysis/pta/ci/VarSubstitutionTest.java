@@ -0,0 +1,98 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+
+public class VarSubstitutionTest {
+
+    private static Var getVar(IR ir, String name) {
+        return ir.getVars()
+                .stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testSharedRepresentatives() {
+        Tests.testCIPTA("cipta", "Call");
+        JMethod main = World.get().getMainMethod();
+        IR ir = main.getIR();
+        Var a = getVar(ir, "a"), temp0 = getVar(ir, "temp$0");
+        Var b = getVar(ir, "b");
+        Var x = getVar(ir, "x"), temp3 = getVar(ir, "temp$3");
+        // a = temp$0 and x = temp$3 are the only definitions of a and x
+        VarSubstitution substitution = new VarSubstitution();
+        Assert.assertEquals(substitution.getRepresentative(a),
+                substitution.getRepresentative(temp0));
+        Assert.assertEquals(substitution.getRepresentative(x),
+                substitution.getRepresentative(temp3));
+        Assert.assertNotEquals(substitution.getRepresentative(a),
+                substitution.getRepresentative(b));
+        // the equivalent variables share one pointer in the PFG
+        CIPTAResult result = World.get().getResult(CIPTA.ID);
+        PointerFlowGraph pfg = result.getPointerFlowGraph();
+        Pointer repA = pfg.getRepOf(pfg.getVarPtr(a));
+        Assert.assertSame(repA, pfg.getRepOf(pfg.getVarPtr(temp0)));
+        Assert.assertSame(pfg.getVarPtr(a).getPointsToSet(),
+                pfg.getVarPtr(temp0).getPointsToSet());
+        Assert.assertSame(pfg.getRepOf(pfg.getVarPtr(x)),
+                pfg.getRepOf(pfg.getVarPtr(temp3)));
+        Assert.assertNotSame(repA, pfg.getRepOf(pfg.getVarPtr(b)));
+    }
+
+    @Test
+    public void testCallResults() {
+        Tests.testCIPTA("cipta", "MergeParam");
+        JMethod main = World.get().getMainMethod();
+        JMethod foo = main.getDeclaringClass().getDeclaredMethod("foo");
+        IR ir = main.getIR();
+        Var result = getVar(ir, "result");
+        Var temp2 = getVar(ir, "temp$2"), temp3 = getVar(ir, "temp$3");
+        Var param = foo.getIR().getParam(0);
+        // the results of foo() have the value number of its return
+        // variable, i.e., its parameter
+        VarSubstitution substitution = new VarSubstitution();
+        Var rep = substitution.getRepresentative(param);
+        Assert.assertEquals(rep, substitution.getRepresentative(temp2));
+        Assert.assertEquals(rep, substitution.getRepresentative(temp3));
+        Assert.assertEquals(rep, substitution.getRepresentative(result));
+        Assert.assertNotEquals(substitution.getRepresentative(getVar(ir, "a1")),
+                substitution.getRepresentative(getVar(ir, "a2")));
+        // the variables of main() and foo() share one pointer in the PFG
+        CIPTAResult ptaResult = World.get().getResult(CIPTA.ID);
+        PointerFlowGraph pfg = ptaResult.getPointerFlowGraph();
+        Pointer repPtr = pfg.getRepOf(pfg.getVarPtr(param));
+        Assert.assertSame(repPtr, pfg.getRepOf(pfg.getVarPtr(temp2)));
+        Assert.assertSame(repPtr, pfg.getRepOf(pfg.getVarPtr(temp3)));
+        Assert.assertSame(repPtr, pfg.getRepOf(pfg.getVarPtr(result)));
+    }
+}
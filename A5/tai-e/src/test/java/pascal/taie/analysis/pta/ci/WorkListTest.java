@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class WorkListTest {
+
+    private static Obj newObj() {
+        return new Obj() {
+            @Override
+            public Type getType() {
+                return null;
+            }
+
+            @Override
+            public Object getAllocation() {
+                return null;
+            }
+
+            @Override
+            public Optional<JMethod> getContainerMethod() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Type getContainerType() {
+                return null;
+            }
+        };
+    }
+
+    private static Set<Obj> toSet(PointsToSet pts) {
+        return pts.objects().collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testMergePendingObjects() {
+        Pointer p1 = new Pointer() {};
+        Pointer p2 = new Pointer() {};
+        Obj o1 = newObj(), o2 = newObj(), o3 = newObj();
+        WorkList workList = new WorkList();
+        workList.addEntry(p1, new PointsToSet(o1));
+        workList.addEntry(p2, new PointsToSet(o2));
+        workList.addEntry(p1, new PointsToSet(o2));
+        workList.addEntry(p1, new PointsToSet(o1));
+        // p1 is polled once with all objects added for it
+        WorkList.Entry entry = workList.pollEntry();
+        Assert.assertSame(p1, entry.pointer());
+        Assert.assertEquals(Set.of(o1, o2), toSet(entry.pointsToSet()));
+        // a pointer added again after being polled is a new entry
+        workList.addEntry(p1, new PointsToSet(o3));
+        entry = workList.pollEntry();
+        Assert.assertSame(p2, entry.pointer());
+        Assert.assertEquals(Set.of(o2), toSet(entry.pointsToSet()));
+        entry = workList.pollEntry();
+        Assert.assertSame(p1, entry.pointer());
+        Assert.assertEquals(Set.of(o3), toSet(entry.pointsToSet()));
+        Assert.assertTrue(workList.isEmpty());
+        Assert.assertNull(workList.pollEntry());
+    }
+}
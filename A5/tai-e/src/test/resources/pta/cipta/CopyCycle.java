@@ -0,0 +1,17 @@
+class CopyCycle {
+
+    public static void main(String[] args) {
+        CopyCycle a = new CopyCycle();
+        CopyCycle b = id(a);
+        a = id(b);
+        a = make();
+    }
+
+    static CopyCycle id(CopyCycle x) {
+        return x;
+    }
+
+    static CopyCycle make() {
+        return new CopyCycle();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Maps;
+
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns contexts in a trie, where each context is a node whose parent
+ * is the context without its last element. Thus each distinct context
+ * exists exactly once, and contexts can be compared by identity.
+ * <p>
+ * Each trie limits the length of the contexts made by {@link #append},
+ * and the results of {@link #append} and {@link #truncate} are cached
+ * in the nodes, so that repeated selections of the same context cost
+ * one map lookup. This class is thread-safe.
+ */
+public class ContextTrie {
+
+    /**
+     * The maximum length of the contexts made by {@link #append}.
+     */
+    private final int limit;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final Node root = new Node(null, null);
+
+    /**
+     * @param limit the maximum length of the contexts made by {@link #append}.
+     */
+    public ContextTrie(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return the empty context.
+     */
+    public Context getEmptyContext() {
+        return root;
+    }
+
+    /**
+     * @return the context consisting of given elements.
+     */
+    public Context make(Object... elements) {
+        Node node = root;
+        for (Object element : elements) {
+            node = node.getChild(element);
+        }
+        return node;
+    }
+
+    /**
+     * Appends an element to given context. If the result is longer than
+     * the limit of this trie, then its oldest elements are dropped.
+     *
+     * @param context a context made by this trie
+     */
+    public Context append(Context context, Object element) {
+        Node node = (Node) context;
+        if (limit == 0) {
+            return root;
+        } else if (node.length < limit) {
+            return node.getChild(element);
+        }
+        return node.appends.computeIfAbsent(element,
+                e -> ((Node) truncate(node, limit - 1)).getChild(e));
+    }
+
+    /**
+     * @param context a context made by this trie
+     * @return the context consisting of the last (at most) k elements of
+     * given context.
+     */
+    public Context truncate(Context context, int k) {
+        Node node = (Node) context;
+        if (k >= node.length) {
+            return node;
+        } else if (k <= 0) {
+            return root;
+        }
+        Node suffix = node.suffixes[k];
+        if (suffix == null) {
+            suffix = (Node) make(node.getElements(node.length - k));
+            // racy writes are benign, as all of them write the same node
+            node.suffixes[k] = suffix;
+        }
+        return suffix;
+    }
+
+    /**
+     * Truncates given context by the trie which made it. This allows
+     * wrappers of context selectors to shorten the contexts made by
+     * the tries of the wrapped selectors.
+     *
+     * @param context a context made by any trie
+     * @return the context consisting of the last (at most) k elements of
+     * given context.
+     */
+    public static Context truncateContext(Context context, int k) {
+        return of(context).truncate(context, k);
+    }
+
+    /**
+     * @param context a context made by any trie
+     * @return the trie which made given context.
+     */
+    public static ContextTrie of(Context context) {
+        return ((Node) context).getTrie();
+    }
+
+    private class Node implements Context, Indexable {
+
+        private final Node parent;
+
+        /**
+         * The last element of this context.
+         */
+        private final Object element;
+
+        private final int length;
+
+        private final int index;
+
+        private final ConcurrentMap<Object, Node> children = Maps.newConcurrentMap();
+
+        /**
+         * Cache of the results of {@link #append} on this context.
+         */
+        private final ConcurrentMap<Object, Node> appends = Maps.newConcurrentMap();
+
+        /**
+         * Cache of the results of {@link #truncate} on this context,
+         * indexed by the length of the results.
+         */
+        private final Node[] suffixes;
+
+        private Node(Node parent, Object element) {
+            this.parent = parent;
+            this.element = element;
+            this.length = parent == null ? 0 : parent.length + 1;
+            this.index = counter.getAndIncrement();
+            this.suffixes = new Node[length];
+        }
+
+        private ContextTrie getTrie() {
+            return ContextTrie.this;
+        }
+
+        private Node getChild(Object element) {
+            return children.computeIfAbsent(element, e -> new Node(this, e));
+        }
+
+        /**
+         * @return the elements of this context starting from given position.
+         */
+        private Object[] getElements(int from) {
+            Object[] elements = new Object[length - from];
+            Node node = this;
+            for (int i = elements.length - 1; i >= 0; --i) {
+                elements[i] = node.element;
+                node = node.parent;
+            }
+            return elements;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public Object getElementAt(int i) {
+            if (i < 0 || i >= length) {
+                throw new AnalysisException(
+                        "Context " + this + " doesn't have " + i + "-th element");
+            }
+            Node node = this;
+            for (int j = length - 1; j > i; --j) {
+                node = node.parent;
+            }
+            return node.element;
+        }
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            for (Object e : getElements(0)) {
+                joiner.add(String.valueOf(e));
+            }
+            return joiner.toString();
+        }
+    }
+}
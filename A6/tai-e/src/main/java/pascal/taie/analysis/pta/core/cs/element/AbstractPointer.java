@@ -28,6 +28,12 @@ abstract class AbstractPointer implements Pointer {
 
     private PointsToSet pointsToSet;
 
+    /**
+     * Index of this pointer, which is assigned by {@link CSManager}
+     * when the pointer is created.
+     */
+    private int index = -1;
+
     @Override
     public PointsToSet getPointsToSet() {
         return pointsToSet;
@@ -38,4 +44,13 @@ abstract class AbstractPointer implements Pointer {
         this.pointsToSet = pointsToSet;
     }
 
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
 }
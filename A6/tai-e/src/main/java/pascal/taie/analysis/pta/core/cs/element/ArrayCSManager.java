@@ -0,0 +1,274 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Manages context-sensitive elements and pointers by arrays.
+ * <p>
+ * The elements of each variable (object, call site, method) are stored in
+ * a small {@link ContextTable} indexed by the context indexes, and
+ * the pointers derived from context-sensitive objects are stored in lists
+ * indexed by the object indexes. Thus the lookups of existing elements
+ * do not allocate. This manager requires the contexts to be
+ * {@link pascal.taie.util.Indexable}, e.g., the contexts made by
+ * {@link pascal.taie.analysis.pta.core.cs.context.ContextTrie}.
+ * <p>
+ * All pointers and objects receive dense indexes, starting from 0.
+ */
+public class ArrayCSManager implements CSManager {
+
+    private final Map<Var, ContextTable<CSVar>> vars = Maps.newMap();
+
+    private final Map<Obj, ContextTable<CSObj>> objs = Maps.newMap();
+
+    private final Map<Invoke, ContextTable<CSCallSite>> callSites = Maps.newMap();
+
+    private final Map<JMethod, ContextTable<CSMethod>> methods = Maps.newMap();
+
+    private final Map<JField, StaticField> staticFields = Maps.newMap();
+
+    /**
+     * Instance fields of each object, indexed by {@link CSObj#getIndex()}.
+     */
+    private final List<Map<JField, InstanceField>> instanceFields = new ArrayList<>();
+
+    /**
+     * Array indexes of each object, indexed by {@link CSObj#getIndex()}.
+     */
+    private final List<ArrayIndex> arrayIndexes = new ArrayList<>();
+
+    /**
+     * List of all context-sensitive objects, indexed by {@link CSObj#getIndex()}.
+     */
+    private final List<CSObj> objList = new ArrayList<>();
+
+    private final Indexer<CSObj> objIndexer = new ObjIndexer();
+
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * Counter for assigning indexes to pointers.
+     */
+    private int pointerCounter = 0;
+
+    /**
+     * Creates a manager whose points-to sets are hash sets.
+     */
+    public ArrayCSManager() {
+        this("hash");
+    }
+
+    /**
+     * @param ptsKind the representation of the points-to sets,
+     *                see {@link PointsToSetFactory#PointsToSetFactory}.
+     */
+    public ArrayCSManager(String ptsKind) {
+        ptsFactory = new PointsToSetFactory(ptsKind, objIndexer);
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        ContextTable<CSVar> table = getTable(vars, var);
+        CSVar csVar = table.get(context);
+        if (csVar == null) {
+            csVar = initializePointer(new CSVar(var, context));
+            table.put(context, csVar);
+        }
+        return csVar;
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        ContextTable<CSObj> table = getTable(objs, obj);
+        CSObj csObj = table.get(heapContext);
+        if (csObj == null) {
+            csObj = new CSObj(obj, heapContext);
+            csObj.setIndex(objList.size());
+            objList.add(csObj);
+            instanceFields.add(null);
+            arrayIndexes.add(null);
+            table.put(heapContext, csObj);
+        }
+        return csObj;
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        ContextTable<CSCallSite> table = getTable(callSites, callSite);
+        CSCallSite csCallSite = table.get(context);
+        if (csCallSite == null) {
+            csCallSite = new CSCallSite(callSite, context);
+            table.put(context, csCallSite);
+        }
+        return csCallSite;
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        ContextTable<CSMethod> table = getTable(methods, method);
+        CSMethod csMethod = table.get(context);
+        if (csMethod == null) {
+            csMethod = new CSMethod(method, context);
+            table.put(context, csMethod);
+        }
+        return csMethod;
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        StaticField staticField = staticFields.get(field);
+        if (staticField == null) {
+            staticField = initializePointer(new StaticField(field));
+            staticFields.put(field, staticField);
+        }
+        return staticField;
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        int index = base.getIndex();
+        Map<JField, InstanceField> fields = instanceFields.get(index);
+        if (fields == null) {
+            fields = Maps.newHybridMap();
+            instanceFields.set(index, fields);
+        }
+        InstanceField instanceField = fields.get(field);
+        if (instanceField == null) {
+            instanceField = initializePointer(new InstanceField(base, field));
+            fields.put(field, instanceField);
+        }
+        return instanceField;
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        int index = array.getIndex();
+        ArrayIndex arrayIndex = arrayIndexes.get(index);
+        if (arrayIndex == null) {
+            arrayIndex = initializePointer(new ArrayIndex(array));
+            arrayIndexes.set(index, arrayIndex);
+        }
+        return arrayIndex;
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(vars.keySet());
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        ContextTable<CSVar> table = vars.get(var);
+        return table != null ? table.values() : Set.of();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return vars.values()
+                .stream()
+                .flatMap(table -> table.values().stream())
+                .toList();
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return Collections.unmodifiableList(objList);
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return instanceFields.stream()
+                .filter(fields -> fields != null)
+                .flatMap(fields -> fields.values().stream())
+                .toList();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return arrayIndexes.stream()
+                .filter(arrayIndex -> arrayIndex != null)
+                .toList();
+    }
+
+    @Override
+    public Indexer<CSObj> getObjectIndexer() {
+        return objIndexer;
+    }
+
+    @Override
+    public PointsToSetFactory getPointsToSetFactory() {
+        return ptsFactory;
+    }
+
+    private static <K, E> ContextTable<E> getTable(
+            Map<K, ContextTable<E>> map, K key) {
+        ContextTable<E> table = map.get(key);
+        if (table == null) {
+            table = new ContextTable<>();
+            map.put(key, table);
+        }
+        return table;
+    }
+
+    private <P extends AbstractPointer> P initializePointer(P pointer) {
+        pointer.setIndex(pointerCounter++);
+        pointer.setPointsToSet(ptsFactory.make());
+        return pointer;
+    }
+
+    private class ObjIndexer implements Indexer<CSObj> {
+
+        @Override
+        public int getIndex(CSObj o) {
+            return o.getIndex();
+        }
+
+        @Override
+        public CSObj getObject(int index) {
+            return objList.get(index);
+        }
+    }
+}
@@ -28,6 +28,8 @@ import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.util.Indexer;
 
 import java.util.Collection;
 
@@ -106,4 +108,16 @@ public interface CSManager {
      * @return all array index pointers.
      */
     Collection<ArrayIndex> getArrayIndexes();
+
+    /**
+     * @return the indexer of the context-sensitive objects created
+     * by this manager.
+     */
+    Indexer<CSObj> getObjectIndexer();
+
+    /**
+     * @return the factory of the points-to sets of the pointers and
+     * the objects managed by this manager.
+     */
+    PointsToSetFactory getPointsToSetFactory();
 }
@@ -0,0 +1,230 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe implementation of {@link CSManager}, which can be used by
+ * multiple threads concurrently. Each element is created exactly once,
+ * and the pointers are initialized with concurrent points-to sets.
+ */
+public class ConcurrentCSManager implements CSManager {
+
+    private final ConcurrentMap<Var, ConcurrentMap<Context, CSVar>> vars = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<Obj, ConcurrentMap<Context, CSObj>> objs = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<Invoke, ConcurrentMap<Context, CSCallSite>> callSites = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<JMethod, ConcurrentMap<Context, CSMethod>> methods = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<JField, StaticField> staticFields = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<CSObj, ConcurrentMap<JField, InstanceField>> instanceFields = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<CSObj, ArrayIndex> arrayIndexes = Maps.newConcurrentMap();
+
+    /**
+     * List of all context-sensitive objects, indexed by {@link CSObj#getIndex()}.
+     * Accesses to the list are synchronized on it.
+     */
+    private final List<CSObj> objList = new ArrayList<>();
+
+    private final Indexer<CSObj> objIndexer = new ObjIndexer();
+
+    /**
+     * Factory of the points-to sets propagated among the pointers,
+     * whose own points-to sets are always concurrent.
+     */
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * Counter for assigning indexes to pointers.
+     */
+    private final AtomicInteger pointerCounter = new AtomicInteger();
+
+    /**
+     * Creates a manager whose propagated points-to sets are hash sets.
+     */
+    public ConcurrentCSManager() {
+        this("hash");
+    }
+
+    /**
+     * @param ptsKind the representation of the propagated points-to sets,
+     *                see {@link PointsToSetFactory#PointsToSetFactory}.
+     */
+    public ConcurrentCSManager(String ptsKind) {
+        ptsFactory = new PointsToSetFactory(ptsKind, objIndexer);
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        return computeIfAbsent(vars, var, context,
+                (v, c) -> initializePointsToSet(new CSVar(v, c)));
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return computeIfAbsent(objs, obj, heapContext, (o, c) -> {
+            CSObj csObj = new CSObj(o, c);
+            synchronized (objList) {
+                csObj.setIndex(objList.size());
+                objList.add(csObj);
+            }
+            return csObj;
+        });
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return computeIfAbsent(callSites, callSite, context, CSCallSite::new);
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return computeIfAbsent(methods, method, context, CSMethod::new);
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field,
+                f -> initializePointsToSet(new StaticField(f)));
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return computeIfAbsent(instanceFields, base, field,
+                (b, f) -> initializePointsToSet(new InstanceField(b, f)));
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return arrayIndexes.computeIfAbsent(array,
+                a -> initializePointsToSet(new ArrayIndex(a)));
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(vars.keySet());
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        Map<Context, CSVar> csVars = vars.get(var);
+        return csVars != null ?
+                Collections.unmodifiableCollection(csVars.values()) : Set.of();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return values(vars);
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return values(objs);
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return values(instanceFields);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableCollection(arrayIndexes.values());
+    }
+
+    @Override
+    public Indexer<CSObj> getObjectIndexer() {
+        return objIndexer;
+    }
+
+    @Override
+    public PointsToSetFactory getPointsToSetFactory() {
+        return ptsFactory;
+    }
+
+    private static <K1, K2, V> V computeIfAbsent(
+            ConcurrentMap<K1, ConcurrentMap<K2, V>> map, K1 key1, K2 key2,
+            BiFunction<K1, K2, V> creator) {
+        return map.computeIfAbsent(key1, k -> Maps.newConcurrentMap())
+                .computeIfAbsent(key2, k -> creator.apply(key1, key2));
+    }
+
+    private static <K1, K2, V> Collection<V> values(
+            ConcurrentMap<K1, ConcurrentMap<K2, V>> map) {
+        return map.values()
+                .stream()
+                .flatMap(m -> m.values().stream())
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    private <P extends AbstractPointer> P initializePointsToSet(P pointer) {
+        pointer.setIndex(pointerCounter.getAndIncrement());
+        pointer.setPointsToSet(PointsToSetFactory.makeConcurrent());
+        return pointer;
+    }
+
+    private class ObjIndexer implements Indexer<CSObj> {
+
+        @Override
+        public int getIndex(CSObj o) {
+            return o.getIndex();
+        }
+
+        @Override
+        public CSObj getObject(int index) {
+            synchronized (objList) {
+                return objList.get(index);
+            }
+        }
+    }
+}
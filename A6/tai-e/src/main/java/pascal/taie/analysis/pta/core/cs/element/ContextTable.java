@@ -0,0 +1,118 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.util.Indexable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open-addressed hash table from contexts to elements, which is keyed by
+ * the indexes of the contexts, thus the contexts must be {@link Indexable}.
+ * The table starts small, as most keys (variables, methods, etc.) are
+ * analyzed in only a few contexts.
+ *
+ * @param <E> type of elements
+ */
+class ContextTable<E> {
+
+    /**
+     * Context indexes + 1, and 0 means the slot is empty.
+     */
+    private int[] keys = new int[2];
+
+    private Object[] values = new Object[2];
+
+    private int size = 0;
+
+    /**
+     * @return the element of given context, or null if absent.
+     */
+    @SuppressWarnings("unchecked")
+    E get(Context context) {
+        int key = keyOf(context);
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (E) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts an element of given context, which must be absent in this table.
+     */
+    void put(Context context, E element) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        insert(keyOf(context), element);
+        ++size;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<E> values() {
+        List<E> result = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != 0) {
+                result.add((E) values[i]);
+            }
+        }
+        return result;
+    }
+
+    private void insert(int key, Object element) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = element;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != 0) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int keyOf(Context context) {
+        return ((Indexable) context).getIndex() + 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -24,12 +24,13 @@ package pascal.taie.analysis.pta.core.cs.element;
 
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.Indexable;
 
 /**
  * Represents all pointers (nodes) in context-sensitive
  * pointer analysis (pointer flow graph).
  */
-public interface Pointer {
+public interface Pointer extends Indexable {
 
     /**
      * @return the points-to set associated with the pointer.
@@ -0,0 +1,115 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ContextTrie;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Wraps a context selector, and limits the lengths of the contexts
+ * selected for the demoted methods. A method demoted to limit k is
+ * analyzed in contexts of at most k elements, and the objects allocated
+ * in it receive heap contexts of at most k - 1 elements. In particular,
+ * methods demoted to limit 0 are analyzed context-insensitively.
+ * <p>
+ * Methods can be demoted during the analysis, which affects the contexts
+ * selected afterwards. The contexts selected before remain valid.
+ */
+public class DemotingSelector implements ContextSelector {
+
+    private final ContextSelector delegate;
+
+    /**
+     * Map from each demoted method to its context length limit.
+     */
+    private final Map<JMethod, Integer> limits = Maps.newConcurrentMap();
+
+    public DemotingSelector(ContextSelector delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Demotes given method to given context length limit. If the method
+     * has been demoted to a shorter limit, then this call has no effect.
+     */
+    public void demote(JMethod method, int limit) {
+        limits.merge(method, Math.max(limit, 0), Math::min);
+    }
+
+    /**
+     * @return the context length limit of given method, or -1 if
+     * the method has not been demoted.
+     */
+    public int getLimitOf(JMethod method) {
+        return limits.getOrDefault(method, -1);
+    }
+
+    /**
+     * @return map from each demoted method to its context length limit.
+     */
+    public Map<JMethod, Integer> getDemotedMethods() {
+        return Collections.unmodifiableMap(limits);
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return delegate.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return limit(delegate.selectContext(callSite, callee), callee, 0);
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return limit(delegate.selectContext(callSite, recv, callee), callee, 0);
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        return limit(delegate.selectHeapContext(method, obj), method.getMethod(), 1);
+    }
+
+    /**
+     * Truncates given context if the method has been demoted.
+     *
+     * @param reduction the number by which the limit of the method
+     *                  is reduced for the context.
+     */
+    private Context limit(Context context, JMethod method, int reduction) {
+        Integer limit = limits.get(method);
+        return limit == null ? context :
+                ContextTrie.truncateContext(context, limit - reduction);
+    }
+}
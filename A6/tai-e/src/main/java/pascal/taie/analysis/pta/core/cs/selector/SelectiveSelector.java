@@ -0,0 +1,132 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ContextTrie;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Selective context sensitivity, which analyzes each method with its own
+ * context-sensitivity variant, e.g., the variants selected by Scaler.
+ * <p>
+ * The supported variants are ci, 1-obj, 2-obj, 1-type and 2-type.
+ * The contexts of all variants are made by the same trie, so that
+ * they can be mixed along call chains.
+ */
+public class SelectiveSelector implements ContextSelector {
+
+    /**
+     * Maximum context length of the supported variants.
+     */
+    private static final int MAX_LIMIT = 2;
+
+    private final ContextTrie contexts = new ContextTrie(MAX_LIMIT);
+
+    /**
+     * Map from each method to its variant.
+     */
+    private final Map<JMethod, Variant> variants = Maps.newMap();
+
+    /**
+     * Variant for the methods absent in the given map.
+     */
+    private final Variant defaultVariant;
+
+    /**
+     * @param csMap          map from methods to their variant names.
+     * @param defaultVariant variant name for the methods absent in csMap.
+     */
+    public SelectiveSelector(Map<JMethod, String> csMap, String defaultVariant) {
+        csMap.forEach((method, cs) -> variants.put(method, Variant.of(cs)));
+        this.defaultVariant = Variant.of(defaultVariant);
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return contexts.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return contexts.truncate(callSite.getContext(), getVariant(callee).limit);
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        if (recv == null) {
+            return selectContext(callSite, callee);
+        }
+        Variant variant = getVariant(callee);
+        if (variant.limit == 0) {
+            return getEmptyContext();
+        }
+        Obj obj = recv.getObject();
+        Object element = variant.isType ? obj.getContainerType() : obj;
+        return contexts.append(
+                contexts.truncate(recv.getContext(), variant.limit - 1), element);
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        Variant variant = getVariant(method.getMethod());
+        return contexts.truncate(method.getContext(), variant.limit - 1);
+    }
+
+    private Variant getVariant(JMethod method) {
+        return variants.getOrDefault(method, defaultVariant);
+    }
+
+    /**
+     * Context-sensitivity variant of a method.
+     *
+     * @param limit  limit of the context length of the method.
+     * @param isType whether the context elements are types (otherwise
+     *               they are objects).
+     */
+    private record Variant(int limit, boolean isType) {
+
+        private static final Variant CI = new Variant(0, false);
+
+        private static Variant of(String cs) {
+            return switch (cs) {
+                case "ci" -> CI;
+                case "1-obj" -> new Variant(1, false);
+                case "2-obj" -> new Variant(2, false);
+                case "1-type" -> new Variant(1, true);
+                case "2-type" -> new Variant(2, true);
+                default -> throw new ConfigException(
+                        "Unsupported context-sensitivity variant: " + cs);
+            };
+        }
+    }
+}
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextTrie;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +35,11 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _1ObjSelector implements ContextSelector {
 
+    private final ContextTrie contexts = new ContextTrie(1);
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return contexts.getEmptyContext();
     }
 
     @Override
@@ -49,15 +51,15 @@ public class _1ObjSelector implements ContextSelector {
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // TODO - finish me
-        if (recv == null){
+        if (recv == null) {
             return selectContext(callSite, callee);
         }
-        return ListContext.make(recv.getObject());
+        return contexts.append(recv.getContext(), recv.getObject());
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // TODO - finish me
-        return getEmptyContext();
+        return contexts.truncate(method.getContext(), 0);
     }
 }
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextTrie;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,21 +36,17 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2CallSelector implements ContextSelector {
 
+    private final ContextTrie contexts = new ContextTrie(2);
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return contexts.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
         // TODO - finish me
-        var contexts = callSite.getContext();
-        var len = contexts.getLength();
-        if (len > 0) {
-            return ListContext.make(contexts.getElementAt(len - 1), callSite.getCallSite());
-        } else {
-            return ListContext.make(callSite.getCallSite());
-        }
+        return contexts.append(callSite.getContext(), callSite.getCallSite());
     }
 
     @Override
@@ -62,12 +58,6 @@ public class _2CallSelector implements ContextSelector {
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // TODO - finish me
-        var contexts = method.getContext();
-        var len = contexts.getLength();
-        if (len > 0) {
-            return ListContext.make(contexts.getElementAt(len - 1));
-        } else {
-            return getEmptyContext();
-        }
+        return contexts.truncate(method.getContext(), 1);
     }
 }
@@ -22,9 +22,8 @@
 
 package pascal.taie.analysis.pta.core.cs.selector;
 
-import fj.P;
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextTrie;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,9 +35,11 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2ObjSelector implements ContextSelector {
 
+    private final ContextTrie contexts = new ContextTrie(2);
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return contexts.getEmptyContext();
     }
 
     @Override
@@ -53,24 +54,12 @@ public class _2ObjSelector implements ContextSelector {
         if (recv == null) {
             return selectContext(callSite, callee);
         }
-        var contexts = recv.getContext();
-        var len = contexts.getLength();
-        if (len > 0) {
-            return ListContext.make(contexts.getElementAt(len - 1), recv.getObject());
-        } else {
-            return ListContext.make(recv.getObject());
-        }
+        return contexts.append(recv.getContext(), recv.getObject());
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // TODO - finish me
-        var contexts = method.getContext();
-        var len = contexts.getLength();
-        if (len > 0) {
-            return ListContext.make(contexts.getElementAt(len - 1));
-        } else {
-            return getEmptyContext();
-        }
+        return contexts.truncate(method.getContext(), 1);
     }
 }
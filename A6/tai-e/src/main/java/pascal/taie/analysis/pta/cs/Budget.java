@@ -0,0 +1,132 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and memory budget of pointer analysis, which are given by options
+ * "time-budget" (in seconds) and "memory-budget" (the fraction of
+ * the maximum heap size, e.g., 0.8). The budget is checked every
+ * "budget-check-interval" worklist entries (4096 by default).
+ */
+class Budget {
+
+    private static final int DEFAULT_CHECK_INTERVAL = 4096;
+
+    /**
+     * Time given to the analysis for reacting to an exceeded budget
+     * before the budget is checked again.
+     */
+    private static final long GRACE_PERIOD = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Time limit in nanoseconds.
+     */
+    private final long timeLimit;
+
+    /**
+     * Memory limit in bytes.
+     */
+    private final long memoryLimit;
+
+    /**
+     * Number of worklist entries processed between two checks.
+     */
+    private final int checkInterval;
+
+    private long startTime;
+
+    private long nextCheckTime;
+
+    /**
+     * Number of worklist entries before the next check. The first
+     * entry is checked, so that an exhausted budget is noticed early.
+     */
+    private int countdown = 1;
+
+    private Budget(long timeLimit, long memoryLimit, int checkInterval) {
+        this.timeLimit = timeLimit;
+        this.memoryLimit = memoryLimit;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * @return the budget given by the options, or null if the options
+     * do not give any budget.
+     */
+    static Budget of(AnalysisOptions options) {
+        boolean hasTime = options.get("time-budget") != null;
+        boolean hasMemory = options.get("memory-budget") != null;
+        if (!hasTime && !hasMemory) {
+            return null;
+        }
+        long timeLimit = hasTime ?
+                TimeUnit.SECONDS.toNanos(options.getInt("time-budget")) :
+                Long.MAX_VALUE;
+        long memoryLimit = hasMemory ?
+                (long) (Runtime.getRuntime().maxMemory() * options.getFloat("memory-budget")) :
+                Long.MAX_VALUE;
+        int checkInterval = options.get("budget-check-interval") != null ?
+                Math.max(1, options.getInt("budget-check-interval")) :
+                DEFAULT_CHECK_INTERVAL;
+        return new Budget(timeLimit, memoryLimit, checkInterval);
+    }
+
+    void start() {
+        startTime = System.nanoTime();
+        nextCheckTime = startTime;
+    }
+
+    /**
+     * Checks the budget periodically. This method is expected to be
+     * called once per worklist entry, and it does not report an exceeded
+     * budget during the grace period.
+     *
+     * @return whether the budget is exceeded.
+     */
+    boolean isExceeded() {
+        if (--countdown > 0) {
+            return false;
+        }
+        countdown = checkInterval;
+        long now = System.nanoTime();
+        if (now < nextCheckTime) {
+            return false;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        return now - startTime > timeLimit || usedMemory > memoryLimit;
+    }
+
+    /**
+     * Starts a grace period, which is expected to be called after
+     * the analysis has reacted to an exceeded budget.
+     */
+    void startGracePeriod() {
+        nextCheckTime = System.nanoTime() + GRACE_PERIOD;
+    }
+}
@@ -26,15 +26,20 @@ import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.SelectiveSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.Strings;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Context-sensitive pointer analysis.
@@ -43,6 +48,20 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    /**
+     * Key of the result which maps the methods demoted due to exceeded
+     * budget to their context length limits.
+     */
+    public static final String DEMOTED_METHODS = "demoted-methods";
+
+    /**
+     * Options which are supported by {@link Solver} but not by
+     * {@link ParallelSolver}.
+     */
+    private static final List<String> SEQUENTIAL_OPTIONS = List.of(
+            "time-budget", "memory-budget", "checkpoint-dir", "resume",
+            "cs-manager");
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
@@ -50,15 +69,66 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
-        solver.solve();
-        PointerAnalysisResult result = solver.getResult();
-        ResultProcessor.process(options, result);
+        boolean parallel = options.getBooleanOrDefault("parallel", false);
+        if (parallel) {
+            checkParallelOptions(options);
+        }
+        String cs = options.getString("cs");
+        ContextSelector selector = cs.equals("scaler") ?
+                getScalerSelector(options) : getContextSelector(cs);
+        PointerAnalysisResult result;
+        Map<JMethod, Integer> demotedMethods = Map.of();
+        if (parallel) {
+            ParallelSolver solver = new ParallelSolver(options,
+                    new AllocationSiteBasedModel(options), selector);
+            solver.solve();
+            result = solver.getResult();
+        } else {
+            Solver solver = new Solver(options,
+                    new AllocationSiteBasedModel(options), selector);
+            solver.solve();
+            result = solver.getResult();
+            demotedMethods = solver.getDemotedMethods();
+        }
+        result.storeResult(DEMOTED_METHODS, demotedMethods);
+        ResultProcessor.process(options, result, demotedMethods);
         return result;
     }
 
+    /**
+     * Rejects the options which would be silently ignored by
+     * {@link ParallelSolver}, e.g., a budget or checkpoints.
+     */
+    private static void checkParallelOptions(AnalysisOptions options) {
+        for (String key : SEQUENTIAL_OPTIONS) {
+            Object value = options.get(key);
+            if (value != null && !Boolean.FALSE.equals(value)) {
+                throw new ConfigException("Option " + key + ":" + value +
+                        " is not supported by parallel:true");
+            }
+        }
+    }
+
+    /**
+     * Runs a context-insensitive pre-analysis, and uses Scaler to select
+     * for each method the most precise context-sensitivity variant that
+     * keeps the total points-to size within the threshold given by
+     * option "scaler-tst" (or Scaler's default threshold).
+     */
+    private static ContextSelector getScalerSelector(AnalysisOptions options) {
+        // the budget and checkpoints are for the main analysis,
+        // not the pre-analysis
+        Solver preSolver = new Solver(options,
+                new AllocationSiteBasedModel(options), new CISelector(), false);
+        preSolver.solve();
+        PointerAnalysisResult preResult = preSolver.getResult();
+        Scaler scaler = options.get("scaler-tst") != null ?
+                new Scaler(preResult, options.getInt("scaler-tst")) :
+                new Scaler(preResult);
+        Map<JMethod, String> csMap = scaler.selectContext();
+        return new SelectiveSelector(csMap, "ci");
+    }
+
     private static ContextSelector getContextSelector(String cs) {
         if (cs.equals("ci")) {
             return new CISelector();
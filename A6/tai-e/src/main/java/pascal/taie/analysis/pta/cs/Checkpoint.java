@@ -0,0 +1,795 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ContextTrie;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.DemotingSelector;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves the solver state to a checkpoint file periodically, and restores
+ * the state from the file. The checkpoint is written to the directory
+ * given by option "checkpoint-dir" every "checkpoint-interval" seconds,
+ * and option "resume" restores the state from the checkpoint before
+ * solving, so that the analysis continues to the same fixpoint.
+ * <p>
+ * The state consists of the call graph, all pointers with their
+ * points-to sets, the merged pointers, the PFG edges, the work list
+ * and the demoted methods. The caches of the solver are not saved.
+ * The program elements are written by their signatures and indexes
+ * in the IR, thus the state can be restored only in a world built
+ * from the same program. The file also records the context sensitivity,
+ * the points-to set representation and the context selector, and
+ * a checkpoint is rejected if they differ from those of the solver.
+ * The file is deleted after the analysis reaches the fixpoint.
+ * <p>
+ * The file is a gzipped binary stream. Each element is defined at its
+ * first occurrence, and referenced by its id afterwards.
+ */
+class Checkpoint {
+
+    private static final Logger logger = LogManager.getLogger(Checkpoint.class);
+
+    private static final String FILE_NAME = "cspta.checkpoint";
+
+    private static final int MAGIC = 0x54414945; // "TAIE"
+
+    private static final int VERSION = 3;
+
+    /**
+     * Default interval between two checkpoints, in seconds.
+     */
+    private static final int DEFAULT_INTERVAL = 600;
+
+    /**
+     * Number of worklist entries processed between two checks of
+     * the interval.
+     */
+    private static final int CHECK_INTERVAL = 4096;
+
+    // tags of context elements
+    private static final int OBJ = 0, TYPE = 1, INVOKE = 2, METHOD = 3;
+
+    // tags of pointers
+    private static final int VAR = 0, STATIC_FIELD = 1,
+            INSTANCE_FIELD = 2, ARRAY_INDEX = 3;
+
+    private final Path file;
+
+    /**
+     * Interval between two checkpoints, in nanoseconds.
+     */
+    private final long interval;
+
+    private final boolean resume;
+
+    /**
+     * The configuration of the solver, i.e., the context sensitivity,
+     * the points-to set representation and the class of context selector.
+     */
+    private final List<String> configuration;
+
+    private long nextTime;
+
+    /**
+     * Number of worklist entries before the next check of the interval.
+     * The first entry is checked, so that interval 0 saves a checkpoint
+     * at once.
+     */
+    private int countdown = 1;
+
+    private Checkpoint(Path file, long interval, boolean resume,
+                       List<String> configuration) {
+        this.file = file;
+        this.interval = interval;
+        this.resume = resume;
+        this.configuration = configuration;
+    }
+
+    /**
+     * @return the checkpoint given by the options, or null if the options
+     * do not give a checkpoint directory.
+     */
+    static Checkpoint of(AnalysisOptions options, ContextSelector contextSelector) {
+        String dir = options.getString("checkpoint-dir");
+        if (dir == null) {
+            return null;
+        }
+        int interval = options.get("checkpoint-interval") != null ?
+                options.getInt("checkpoint-interval") : DEFAULT_INTERVAL;
+        String pts = options.getString("pts");
+        List<String> configuration = List.of(
+                String.valueOf(options.getString("cs")),
+                pts != null ? pts : "hash",
+                contextSelector.getClass().getName());
+        return new Checkpoint(Path.of(dir, FILE_NAME),
+                TimeUnit.SECONDS.toNanos(interval),
+                options.getBooleanOrDefault("resume", false), configuration);
+    }
+
+    /**
+     * @return whether the solver should resume from the checkpoint.
+     */
+    boolean canResume() {
+        if (!resume) {
+            return false;
+        }
+        if (!Files.exists(file)) {
+            logger.warn("Checkpoint {} does not exist, solving from scratch", file);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Starts the timer of periodic checkpoints.
+     */
+    void start() {
+        nextTime = System.nanoTime() + interval;
+    }
+
+    /**
+     * Checks the timer periodically. This method is expected to be
+     * called once per worklist entry.
+     *
+     * @return whether a checkpoint should be saved now.
+     */
+    boolean isDue() {
+        if (--countdown > 0) {
+            return false;
+        }
+        countdown = CHECK_INTERVAL;
+        long now = System.nanoTime();
+        if (now < nextTime) {
+            return false;
+        }
+        nextTime = now + interval;
+        return true;
+    }
+
+    /**
+     * Saves the solver state. The file is replaced atomically, so that
+     * a crash during saving keeps the previous checkpoint.
+     */
+    void save(CSManager csManager, CSCallGraph callGraph,
+              PointerFlowGraph pointerFlowGraph, WorkList workList,
+              Map<JMethod, Integer> demotedMethods) {
+        logger.info("Saving checkpoint to {} ...", file);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new GZIPOutputStream(
+                            Files.newOutputStream(temp))))) {
+                new Writer(out).write(configuration, csManager, callGraph,
+                        pointerFlowGraph, workList, demotedMethods);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to save checkpoint to " + file, e);
+        }
+    }
+
+    /**
+     * Restores the solver state into given empty components.
+     *
+     * @param demotingSelector the selector to restore demoted methods,
+     *                         or null if there is no budget.
+     */
+    void restore(ContextSelector contextSelector, HeapModel heapModel,
+                 CSManager csManager, CSCallGraph callGraph,
+                 PointerFlowGraph pointerFlowGraph, WorkList workList,
+                 DemotingSelector demotingSelector) {
+        logger.info("Restoring checkpoint from {} ...", file);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(
+                        Files.newInputStream(file))))) {
+            new Reader(in, contextSelector, heapModel, csManager)
+                    .read(configuration, callGraph, pointerFlowGraph,
+                            workList, demotingSelector);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to restore checkpoint from " + file, e);
+        }
+    }
+
+    /**
+     * Deletes the checkpoint, which is expected to be called after
+     * the analysis has reached the fixpoint.
+     */
+    void delete() {
+        try {
+            if (Files.deleteIfExists(file)) {
+                logger.info("Deleted checkpoint {}", file);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete checkpoint {}", file, e);
+        }
+    }
+
+    private static class Writer {
+
+        private final DataOutputStream out;
+
+        /**
+         * Ids of the written elements.
+         */
+        private final Map<Object, Integer> ids = Maps.newMap();
+
+        private Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void write(List<String> configuration,
+                           CSManager csManager, CSCallGraph callGraph,
+                           PointerFlowGraph pointerFlowGraph, WorkList workList,
+                           Map<JMethod, Integer> demotedMethods) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (String s : configuration) {
+                out.writeUTF(s);
+            }
+            writeMethod(World.get().getMainMethod());
+            // call graph
+            writeCSMethods(callGraph.entryMethods().toList());
+            writeCSMethods(callGraph.reachableMethods().toList());
+            List<Edge<CSCallSite, CSMethod>> edges = callGraph.edges().toList();
+            writeInt(edges.size());
+            for (Edge<CSCallSite, CSMethod> edge : edges) {
+                out.writeByte(edge.getKind().ordinal());
+                writeCSCallSite(edge.getCallSite());
+                writeCSMethod(edge.getCallee());
+            }
+            // pointers
+            List<Pointer> pointers = new ArrayList<>();
+            pointers.addAll(csManager.getCSVars());
+            pointers.addAll(csManager.getStaticFields());
+            pointers.addAll(csManager.getInstanceFields());
+            pointers.addAll(csManager.getArrayIndexes());
+            List<Pointer> reps = new ArrayList<>();
+            List<Pointer> members = new ArrayList<>();
+            for (Pointer pointer : pointers) {
+                if (pointerFlowGraph.getRepOf(pointer).equals(pointer)) {
+                    reps.add(pointer);
+                } else {
+                    members.add(pointer);
+                }
+            }
+            writeInt(reps.size());
+            for (Pointer rep : reps) {
+                writePointer(rep);
+                writePointsToSet(rep.getPointsToSet());
+            }
+            writeInt(members.size());
+            for (Pointer member : members) {
+                writePointer(member);
+                writePointer(pointerFlowGraph.getRepOf(member));
+            }
+            // PFG edges, which only connect representatives
+            int nEdges = 0;
+            for (Pointer rep : reps) {
+                nEdges += pointerFlowGraph.getSuccsOf(rep).size();
+            }
+            writeInt(nEdges);
+            for (Pointer rep : reps) {
+                for (Pointer succ : pointerFlowGraph.getSuccsOf(rep)) {
+                    writePointer(rep);
+                    writePointer(succ);
+                    Set<Type> filters = pointerFlowGraph.getFiltersOf(rep, succ);
+                    writeInt(filters == null ? 0 : filters.size());
+                    if (filters != null) {
+                        for (Type filter : filters) {
+                            writeType(filter);
+                        }
+                    }
+                }
+            }
+            // work list
+            Collection<WorkList.Entry> entries = workList.getEntries();
+            writeInt(entries.size());
+            for (WorkList.Entry entry : entries) {
+                writePointer(entry.pointer());
+                writePointsToSet(entry.pointsToSet());
+            }
+            // demoted methods
+            writeInt(demotedMethods.size());
+            for (Map.Entry<JMethod, Integer> e : demotedMethods.entrySet()) {
+                writeMethod(e.getKey());
+                writeInt(e.getValue());
+            }
+        }
+
+        /**
+         * Writes a non-negative integer in variable-length format.
+         */
+        private void writeInt(int i) throws IOException {
+            while ((i & ~0x7f) != 0) {
+                out.writeByte((i & 0x7f) | 0x80);
+                i >>>= 7;
+            }
+            out.writeByte(i);
+        }
+
+        /**
+         * Writes the reference to given element if it has been written,
+         * otherwise writes a definition marker and returns true,
+         * and the caller should then write the definition.
+         */
+        private boolean writeRef(Object o) throws IOException {
+            Integer id = ids.get(o);
+            if (id != null) {
+                writeInt(id << 1);
+                return false;
+            }
+            writeInt(1);
+            return true;
+        }
+
+        /**
+         * Assigns an id to given element after its definition is written.
+         */
+        private void define(Object o) {
+            ids.put(o, ids.size());
+        }
+
+        private void writeMethod(JMethod method) throws IOException {
+            if (writeRef(method)) {
+                out.writeUTF(method.getSignature());
+                define(method);
+            }
+        }
+
+        private void writeField(JField field) throws IOException {
+            if (writeRef(field)) {
+                out.writeUTF(field.getSignature());
+                define(field);
+            }
+        }
+
+        private void writeType(Type type) throws IOException {
+            if (writeRef(type)) {
+                out.writeUTF(type.getName());
+                define(type);
+            }
+        }
+
+        private void writeVar(Var var) throws IOException {
+            if (writeRef(var)) {
+                writeMethod(var.getMethod());
+                writeInt(var.getIndex());
+                define(var);
+            }
+        }
+
+        private void writeInvoke(Invoke invoke) throws IOException {
+            if (writeRef(invoke)) {
+                writeMethod(invoke.getContainer());
+                writeInt(invoke.getIndex());
+                define(invoke);
+            }
+        }
+
+        /**
+         * Writes an object by one of its allocation sites.
+         */
+        private void writeObj(Obj obj) throws IOException {
+            if (writeRef(obj)) {
+                New allocation = getAllocationSite(obj);
+                writeMethod(allocation.getContainer());
+                writeInt(allocation.getIndex());
+                define(obj);
+            }
+        }
+
+        private void writeContext(Context context) throws IOException {
+            if (writeRef(context)) {
+                writeInt(context.getLength());
+                for (int i = 0; i < context.getLength(); ++i) {
+                    Object elem = context.getElementAt(i);
+                    if (elem instanceof Obj obj) {
+                        out.writeByte(OBJ);
+                        writeObj(obj);
+                    } else if (elem instanceof Type type) {
+                        out.writeByte(TYPE);
+                        writeType(type);
+                    } else if (elem instanceof Invoke invoke) {
+                        out.writeByte(INVOKE);
+                        writeInvoke(invoke);
+                    } else if (elem instanceof JMethod method) {
+                        out.writeByte(METHOD);
+                        writeMethod(method);
+                    } else {
+                        throw new AnalysisException(
+                                "Cannot checkpoint context element " + elem);
+                    }
+                }
+                define(context);
+            }
+        }
+
+        private void writeCSObj(CSObj csObj) throws IOException {
+            if (writeRef(csObj)) {
+                writeContext(csObj.getContext());
+                writeObj(csObj.getObject());
+                define(csObj);
+            }
+        }
+
+        private void writeCSMethod(CSMethod csMethod) throws IOException {
+            if (writeRef(csMethod)) {
+                writeContext(csMethod.getContext());
+                writeMethod(csMethod.getMethod());
+                define(csMethod);
+            }
+        }
+
+        private void writeCSMethods(List<CSMethod> csMethods) throws IOException {
+            writeInt(csMethods.size());
+            for (CSMethod csMethod : csMethods) {
+                writeCSMethod(csMethod);
+            }
+        }
+
+        private void writeCSCallSite(CSCallSite csCallSite) throws IOException {
+            if (writeRef(csCallSite)) {
+                writeContext(csCallSite.getContext());
+                writeInvoke(csCallSite.getCallSite());
+                define(csCallSite);
+            }
+        }
+
+        private void writePointer(Pointer pointer) throws IOException {
+            if (writeRef(pointer)) {
+                if (pointer instanceof CSVar csVar) {
+                    out.writeByte(VAR);
+                    writeContext(csVar.getContext());
+                    writeVar(csVar.getVar());
+                } else if (pointer instanceof StaticField staticField) {
+                    out.writeByte(STATIC_FIELD);
+                    writeField(staticField.getField());
+                } else if (pointer instanceof InstanceField instanceField) {
+                    out.writeByte(INSTANCE_FIELD);
+                    writeCSObj(instanceField.getBase());
+                    writeField(instanceField.getField());
+                } else if (pointer instanceof ArrayIndex arrayIndex) {
+                    out.writeByte(ARRAY_INDEX);
+                    writeCSObj(arrayIndex.getArray());
+                } else {
+                    throw new AnalysisException("Cannot checkpoint pointer " + pointer);
+                }
+                define(pointer);
+            }
+        }
+
+        private void writePointsToSet(PointsToSet pts) throws IOException {
+            writeInt(pts.size());
+            for (CSObj csObj : pts) {
+                writeCSObj(csObj);
+            }
+        }
+
+        private static New getAllocationSite(Obj obj) {
+            Object allocation = obj.getAllocation();
+            if (allocation instanceof New newStmt) {
+                return newStmt;
+            } else if (allocation instanceof Set<?> objs) {
+                // merged object, which can be restored by any of its members
+                for (Object o : objs) {
+                    if (o instanceof Obj member &&
+                            member.getAllocation() instanceof New newStmt) {
+                        return newStmt;
+                    }
+                }
+            }
+            throw new AnalysisException("Cannot checkpoint object " + obj);
+        }
+    }
+
+    private static class Reader {
+
+        private final DataInputStream in;
+
+        private final ContextTrie contexts;
+
+        private final HeapModel heapModel;
+
+        private final CSManager csManager;
+
+        private final ClassHierarchy hierarchy = World.get().getClassHierarchy();
+
+        /**
+         * The read elements, indexed by their ids.
+         */
+        private final List<Object> elements = new ArrayList<>();
+
+        private Reader(DataInputStream in, ContextSelector contextSelector,
+                       HeapModel heapModel, CSManager csManager) {
+            this.in = in;
+            this.contexts = ContextTrie.of(contextSelector.getEmptyContext());
+            this.heapModel = heapModel;
+            this.csManager = csManager;
+        }
+
+        private void read(List<String> configuration,
+                          CSCallGraph callGraph, PointerFlowGraph pointerFlowGraph,
+                          WorkList workList, DemotingSelector demotingSelector)
+                throws IOException {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new AnalysisException("Invalid checkpoint format");
+            }
+            List<String> saved = new ArrayList<>();
+            for (int i = 0; i < configuration.size(); ++i) {
+                saved.add(in.readUTF());
+            }
+            if (!saved.equals(configuration)) {
+                throw new AnalysisException("Checkpoint of configuration " +
+                        saved + " does not match " + configuration);
+            }
+            JMethod main = readMethod();
+            if (!main.equals(World.get().getMainMethod())) {
+                throw new AnalysisException("Checkpoint of " + main +
+                        " does not match main method " + World.get().getMainMethod());
+            }
+            // call graph
+            for (int i = readInt(); i > 0; --i) {
+                callGraph.addEntryMethod(readCSMethod());
+            }
+            for (int i = readInt(); i > 0; --i) {
+                callGraph.addReachableMethod(readCSMethod());
+            }
+            for (int i = readInt(); i > 0; --i) {
+                CallKind kind = CallKind.values()[in.readByte()];
+                CSCallSite csCallSite = readCSCallSite();
+                callGraph.addEdge(new Edge<>(kind, csCallSite, readCSMethod()));
+            }
+            // pointers
+            for (int i = readInt(); i > 0; --i) {
+                Pointer rep = readPointer();
+                readPointsToSet(rep.getPointsToSet());
+            }
+            for (int i = readInt(); i > 0; --i) {
+                Pointer member = readPointer();
+                Pointer rep = readPointer();
+                pointerFlowGraph.merge(rep, Set.of(rep, member));
+                member.setPointsToSet(rep.getPointsToSet());
+            }
+            // PFG edges
+            for (int i = readInt(); i > 0; --i) {
+                Pointer source = readPointer();
+                Pointer target = readPointer();
+                int nFilters = readInt();
+                if (nFilters == 0) {
+                    pointerFlowGraph.addEdge(source, target, null);
+                }
+                for (int j = 0; j < nFilters; ++j) {
+                    pointerFlowGraph.addEdge(source, target, readType());
+                }
+            }
+            // work list
+            for (int i = readInt(); i > 0; --i) {
+                Pointer pointer = readPointer();
+                workList.addEntry(pointer, readPointsToSet(
+                        csManager.getPointsToSetFactory().make()));
+            }
+            // demoted methods
+            for (int i = readInt(); i > 0; --i) {
+                JMethod method = readMethod();
+                int limit = readInt();
+                if (demotingSelector != null) {
+                    demotingSelector.demote(method, limit);
+                }
+            }
+        }
+
+        private int readInt() throws IOException {
+            int i = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.readUnsignedByte();
+                i |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return i;
+                }
+            }
+        }
+
+        /**
+         * Reads the reference to an element, or its definition by
+         * given reader if the element has not been read.
+         */
+        @SuppressWarnings("unchecked")
+        private <T> T readRef(ElementReader<T> reader) throws IOException {
+            int ref = readInt();
+            if ((ref & 1) == 0) {
+                return (T) elements.get(ref >>> 1);
+            }
+            T element = reader.read();
+            elements.add(element);
+            return element;
+        }
+
+        private JMethod readMethod() throws IOException {
+            return readRef(() -> {
+                String signature = in.readUTF();
+                JMethod method = hierarchy.getMethod(signature);
+                if (method == null) {
+                    throw new AnalysisException("Method " + signature +
+                            " of checkpoint does not exist");
+                }
+                return method;
+            });
+        }
+
+        private JField readField() throws IOException {
+            return readRef(() -> {
+                String signature = in.readUTF();
+                JField field = hierarchy.getField(signature);
+                if (field == null) {
+                    throw new AnalysisException("Field " + signature +
+                            " of checkpoint does not exist");
+                }
+                return field;
+            });
+        }
+
+        private Type readType() throws IOException {
+            return readRef(() -> World.get().getTypeSystem().getType(in.readUTF()));
+        }
+
+        private Var readVar() throws IOException {
+            return readRef(() -> readMethod().getIR().getVar(readInt()));
+        }
+
+        private Invoke readInvoke() throws IOException {
+            return readRef(() -> (Invoke) readMethod().getIR().getStmt(readInt()));
+        }
+
+        private Obj readObj() throws IOException {
+            return readRef(() -> heapModel.getObj(
+                    (New) readMethod().getIR().getStmt(readInt())));
+        }
+
+        private Context readContext() throws IOException {
+            return readRef(() -> {
+                Object[] elems = new Object[readInt()];
+                for (int i = 0; i < elems.length; ++i) {
+                    int tag = in.readByte();
+                    elems[i] = switch (tag) {
+                        case OBJ -> readObj();
+                        case TYPE -> readType();
+                        case INVOKE -> readInvoke();
+                        case METHOD -> readMethod();
+                        default -> throw new AnalysisException(
+                                "Invalid context element tag: " + tag);
+                    };
+                }
+                return contexts.make(elems);
+            });
+        }
+
+        private CSObj readCSObj() throws IOException {
+            return readRef(() -> {
+                Context context = readContext();
+                return csManager.getCSObj(context, readObj());
+            });
+        }
+
+        private CSMethod readCSMethod() throws IOException {
+            return readRef(() -> {
+                Context context = readContext();
+                return csManager.getCSMethod(context, readMethod());
+            });
+        }
+
+        private CSCallSite readCSCallSite() throws IOException {
+            return readRef(() -> {
+                Context context = readContext();
+                return csManager.getCSCallSite(context, readInvoke());
+            });
+        }
+
+        private Pointer readPointer() throws IOException {
+            return readRef(() -> {
+                int tag = in.readByte();
+                Pointer pointer = switch (tag) {
+                    case VAR -> {
+                        Context context = readContext();
+                        yield csManager.getCSVar(context, readVar());
+                    }
+                    case STATIC_FIELD -> csManager.getStaticField(readField());
+                    case INSTANCE_FIELD -> {
+                        CSObj base = readCSObj();
+                        yield csManager.getInstanceField(base, readField());
+                    }
+                    case ARRAY_INDEX -> csManager.getArrayIndex(readCSObj());
+                    default -> throw new AnalysisException(
+                            "Invalid pointer tag: " + tag);
+                };
+                return pointer;
+            });
+        }
+
+        /**
+         * Reads objects into given points-to set.
+         *
+         * @return the given points-to set.
+         */
+        private PointsToSet readPointsToSet(PointsToSet pts) throws IOException {
+            for (int i = readInt(); i > 0; --i) {
+                pts.addObject(readCSObj());
+            }
+            return pts;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ElementReader<T> {
+        T read() throws IOException;
+    }
+}
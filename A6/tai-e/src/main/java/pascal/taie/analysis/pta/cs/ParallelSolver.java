@@ -0,0 +1,360 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.*;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.*;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multi-threaded solver of context-sensitive pointer analysis.
+ * <p>
+ * Each work-list entry is processed as a task of a {@link ForkJoinPool},
+ * thus every worker thread has its own work list, and idle threads steal
+ * entries from busy ones. The points-to sets are concurrent, and each
+ * object is added to a points-to set exactly once, so that the objects
+ * are propagated and processed exactly once per pointer as in
+ * {@link Solver}. As the analysis is monotone, the result is the same
+ * fixpoint as the one computed by {@link Solver}, regardless of
+ * the order in which the entries are processed.
+ * <p>
+ * The services of {@link World} (heap model, IR, method dispatch and
+ * subtype checks) are not thread-safe, thus they are accessed under
+ * a lock, and their results are cached in concurrent maps.
+ */
+class ParallelSolver {
+
+    private static final Logger logger = LogManager.getLogger(ParallelSolver.class);
+
+    private final AnalysisOptions options;
+
+    private final HeapModel heapModel;
+
+    private final ContextSelector contextSelector;
+
+    private final int parallelism;
+
+    private CSManager csManager;
+
+    private CSCallGraph callGraph;
+
+    private SolverRules rules;
+
+    /**
+     * Pointer flow graph, i.e., map from a pointer to its successors and
+     * the type filters of the edges (empty if the edge has no filter).
+     * The filter sets are immutable, and are replaced atomically when
+     * an edge gains a filter.
+     */
+    private ConcurrentMap<Pointer, ConcurrentMap<Pointer, Set<Type>>> successors;
+
+    private ForkJoinPool pool;
+
+    /**
+     * The first exception thrown by the tasks.
+     */
+    private AtomicReference<Throwable> failure;
+
+    /**
+     * Guards the accesses to the services of World.
+     */
+    private final Object worldLock = new Object();
+
+    private TypeSystem typeSystem;
+
+    private ConcurrentMap<JMethod, IR> irs;
+
+    private ConcurrentMap<Invoke, ConcurrentMap<Type, JMethod>> callees;
+
+    private ConcurrentMap<Type, ConcurrentMap<Type, Boolean>> subtypeCache;
+
+    private PointerAnalysisResult result;
+
+    ParallelSolver(AnalysisOptions options, HeapModel heapModel,
+                   ContextSelector contextSelector) {
+        this.options = options;
+        this.heapModel = heapModel;
+        this.contextSelector = contextSelector;
+        // number of threads, which is the number of processors by default
+        this.parallelism = options.get("threads") != null ?
+                options.getInt("threads") :
+                Runtime.getRuntime().availableProcessors();
+    }
+
+    void solve() {
+        initialize();
+        analyze();
+    }
+
+    private void initialize() {
+        String pts = options.getString("pts");
+        csManager = new ConcurrentCSManager(pts != null ? pts : "hash");
+        callGraph = new CSCallGraph(csManager);
+        successors = Maps.newConcurrentMap();
+        pool = new ForkJoinPool(parallelism);
+        failure = new AtomicReference<>();
+        typeSystem = World.get().getTypeSystem();
+        irs = Maps.newConcurrentMap();
+        callees = Maps.newConcurrentMap();
+        subtypeCache = Maps.newConcurrentMap();
+        rules = new Rules();
+        // process program entry, i.e., main method
+        Context defContext = contextSelector.getEmptyContext();
+        JMethod main = World.get().getMainMethod();
+        CSMethod csMethod = csManager.getCSMethod(defContext, main);
+        callGraph.addEntryMethod(csMethod);
+        rules.addReachable(csMethod);
+    }
+
+    /**
+     * Processes work-list entries until all threads are idle and
+     * no entries remain.
+     */
+    private void analyze() {
+        logger.info("Solving with {} threads", parallelism);
+        pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.DAYS);
+        pool.shutdown();
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException re) {
+            throw re;
+        } else if (e instanceof Error error) {
+            throw error;
+        } else if (e != null) {
+            throw new AnalysisException("Parallel pointer analysis failed", e);
+        }
+    }
+
+    /**
+     * Adds an entry to the work list of current thread, or submits it
+     * to the pool if current thread is not a worker of the pool.
+     */
+    private void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        Propagation task = new Propagation(pointer, pointsToSet);
+        if (ForkJoinTask.getPool() == pool) {
+            task.fork();
+        } else {
+            pool.execute(task);
+        }
+    }
+
+    /**
+     * Work-list entry which propagates a points-to set to a pointer.
+     */
+    private class Propagation extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Pointer pointer;
+
+        private final PointsToSet pointsToSet;
+
+        private Propagation(Pointer pointer, PointsToSet pointsToSet) {
+            this.pointer = pointer;
+            this.pointsToSet = pointsToSet;
+        }
+
+        @Override
+        protected void compute() {
+            if (failure.get() != null) {
+                return;
+            }
+            try {
+                PointsToSet delta = propagate(pointer, pointsToSet);
+                if (!delta.isEmpty() && pointer instanceof CSVar csVar) {
+                    rules.processNewObjects(csVar, delta);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Adds an edge "source -> target" with type filter to the PFG.
+     * If the edge already exists with other filters, then the filter
+     * is added to them as in {@link PointerFlowGraph#addEdge}.
+     *
+     * @param filter the type filter of the edge, or null if no filter.
+     */
+    private void addPFGEdge(Pointer source, Pointer target, Type filter) {
+        Map<Pointer, Set<Type>> succs = successors.computeIfAbsent(
+                source, s -> Maps.newConcurrentMap());
+        Set<Type> newFilters = filter == null ? Set.of() : Set.of(filter);
+        Set<Type> oldFilters = succs.putIfAbsent(target, newFilters);
+        while (oldFilters != null) {
+            if (oldFilters.isEmpty() ||
+                    (filter != null && oldFilters.contains(filter))) {
+                return; // the filter does not relax the edge
+            }
+            if (filter != null) {
+                newFilters = Sets.newHybridSet(oldFilters);
+                newFilters.add(filter);
+                newFilters = Collections.unmodifiableSet(newFilters);
+            }
+            if (succs.replace(target, oldFilters, newFilters)) {
+                break;
+            }
+            oldFilters = succs.get(target);
+        }
+        // the edge (or its new filter) is added before reading pt(source),
+        // so that the objects added to pt(source) concurrently are
+        // propagated either here or by the thread which adds them
+        PointsToSet pts = rules.filter(source.getPointsToSet(), filter);
+        if (!pts.isEmpty()) {
+            addEntry(target, pts);
+        }
+    }
+
+    /**
+     * Propagates pointsToSet to pt(pointer) and its PFG successors,
+     * returns the difference set of pointsToSet and pt(pointer).
+     */
+    private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
+        PointsToSet delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (!delta.isEmpty()) {
+            Map<Pointer, Set<Type>> succs = successors.get(pointer);
+            if (succs != null) {
+                succs.forEach((succ, filters) -> {
+                    PointsToSet pts = filters.isEmpty() ?
+                            delta : rules.filter(delta, filters);
+                    if (!pts.isEmpty()) {
+                        addEntry(succ, pts);
+                    }
+                });
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Rules of the analysis which fork the entries as tasks, add
+     * the edges to {@link #successors}, and access the services of
+     * World under {@link #worldLock}.
+     */
+    private class Rules extends SolverRules {
+
+        private Rules() {
+            super(ParallelSolver.this.heapModel, ParallelSolver.this.contextSelector,
+                    ParallelSolver.this.csManager, ParallelSolver.this.callGraph);
+        }
+
+        @Override
+        void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+            ParallelSolver.this.addEntry(pointer, pointsToSet);
+        }
+
+        @Override
+        void addPFGEdge(Pointer source, Pointer target, Type filter) {
+            ParallelSolver.this.addPFGEdge(source, target, filter);
+        }
+
+        @Override
+        Obj getObj(New allocSite) {
+            synchronized (worldLock) {
+                return heapModel.getObj(allocSite);
+            }
+        }
+
+        @Override
+        boolean isSubtype(Type supertype, Type subtype) {
+            Map<Type, Boolean> cache = subtypeCache.computeIfAbsent(
+                    supertype, t -> Maps.newConcurrentMap());
+            Boolean result = cache.get(subtype);
+            if (result == null) {
+                synchronized (worldLock) {
+                    result = typeSystem.isSubtype(supertype, subtype);
+                }
+                cache.put(subtype, result);
+            }
+            return result;
+        }
+
+        @Override
+        IR getIR(JMethod method) {
+            IR ir = irs.get(method);
+            if (ir == null) {
+                synchronized (worldLock) {
+                    ir = irs.computeIfAbsent(method, JMethod::getIR);
+                }
+            }
+            return ir;
+        }
+
+        @Override
+        JMethod resolveCallee(CSObj recv, Invoke callSite) {
+            if (recv == null) {
+                synchronized (worldLock) {
+                    return CallGraphs.resolveCallee(null, callSite);
+                }
+            }
+            Type type = recv.getObject().getType();
+            Map<Type, JMethod> cache = callees.computeIfAbsent(
+                    callSite, c -> Maps.newConcurrentMap());
+            JMethod callee = cache.get(type);
+            if (callee == null) {
+                synchronized (worldLock) {
+                    callee = CallGraphs.resolveCallee(type, callSite);
+                }
+                cache.put(type, callee);
+            }
+            return callee;
+        }
+    }
+
+    PointerAnalysisResult getResult() {
+        if (result == null) {
+            result = new PointerAnalysisResultImpl(csManager, callGraph);
+        }
+        return result;
+    }
+}
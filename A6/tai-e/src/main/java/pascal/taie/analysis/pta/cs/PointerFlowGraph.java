@@ -23,13 +23,27 @@
 package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.language.type.Type;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in context-sensitive pointer analysis.
+ * <p>
+ * The pointers on a cycle of the PFG always have the same points-to set,
+ * thus they can be merged into one representative pointer. After merging,
+ * the edges of the merged pointers belong to the representative, and
+ * the successors returned by this PFG may contain merged pointers,
+ * which should be mapped to their representatives by {@link #getRepOf}.
  */
 class PointerFlowGraph {
 
@@ -38,6 +52,24 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from (source, target) to the type filters of the edge. Only
+     * the objects whose types are subtypes of any of the filters can flow
+     * along the edge. The edges absent in the map have no filter.
+     */
+    private final TwoKeyMap<Pointer, Pointer, Set<Type>> filters = Maps.newTwoKeyMap();
+
+    /**
+     * Map from a merged pointer to its representative (or another merged
+     * pointer which is closer to the representative).
+     */
+    private final Map<Pointer, Pointer> reps = Maps.newMap();
+
+    /**
+     * Map from a representative to the pointers merged into it.
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
     /**
      * Adds an edge (source -> target) to this PFG.
      *
@@ -45,7 +77,47 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        return addEdge(source, target, null);
+    }
+
+    /**
+     * Adds an edge (source -> target) with type filter to this PFG.
+     * If the edge already exists with other filters, then the filter is
+     * added to them, as the objects passing any of the filters can flow
+     * along the edge. Adding the edge without filter removes its filters.
+     *
+     * @param filter the type filter of the edge, or null if no filter.
+     * @return true if this PFG changed (i.e., the edge is added or its
+     * filters are relaxed) as a result of the call, otherwise false.
+     */
+    boolean addEdge(Pointer source, Pointer target, Type filter) {
+        if (successors.put(source, target)) {
+            if (filter != null) {
+                Set<Type> edgeFilters = Sets.newHybridSet();
+                edgeFilters.add(filter);
+                filters.put(source, target, edgeFilters);
+            }
+            return true;
+        }
+        Set<Type> edgeFilters = filters.get(source, target);
+        if (edgeFilters == null) { // the edge has no filter
+            return false;
+        }
+        if (filter == null) {
+            filters.remove(source, target);
+            return true;
+        }
+        return edgeFilters.add(filter);
+    }
+
+    /**
+     * @return the type filters of edge (source -> target), or null if
+     * the edge has no filter.
+     */
+    Set<Type> getFiltersOf(Pointer source, Pointer target) {
+        Set<Type> edgeFilters = filters.get(source, target);
+        return edgeFilters == null ? null :
+                Collections.unmodifiableSet(edgeFilters);
     }
 
     /**
@@ -54,4 +126,105 @@ class PointerFlowGraph {
     Set<Pointer> getSuccsOf(Pointer pointer) {
         return successors.get(pointer);
     }
+
+    /**
+     * @return the representative of given pointer. If the pointer
+     * has not been merged, then returns the pointer itself.
+     */
+    Pointer getRepOf(Pointer pointer) {
+        Pointer rep = reps.get(pointer);
+        if (rep == null) {
+            return pointer;
+        }
+        Pointer root = getRepOf(rep);
+        if (root != rep) { // path compression
+            reps.put(pointer, root);
+        }
+        return root;
+    }
+
+    /**
+     * @return the pointers merged into given representative.
+     */
+    Set<Pointer> getMembersOf(Pointer rep) {
+        return members.get(rep);
+    }
+
+    /**
+     * Finds the pointers on the cycles which go through edge
+     * source -> target, where both source and target are representatives.
+     * The edges with type filters are ignored, as the points-to sets of
+     * the pointers on such cycles may differ.
+     *
+     * @return the representatives on the cycles, or an empty set if
+     * target cannot reach source.
+     */
+    Set<Pointer> findCycle(Pointer source, Pointer target) {
+        // iterative DFS from target, and a node is on the cycles if
+        // it can reach source
+        Set<Pointer> onCycle = Sets.newHybridSet();
+        Set<Pointer> visited = Sets.newSet();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> iters = new ArrayDeque<>();
+        visited.add(target);
+        stack.push(target);
+        iters.push(successors.get(target).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Pointer> iter = iters.peek();
+            if (iter.hasNext()) {
+                Pointer next = iter.next();
+                if (filters.containsKey(stack.peek(), next)) {
+                    continue;
+                }
+                Pointer succ = getRepOf(next);
+                if (succ.equals(source)) {
+                    onCycle.add(stack.peek());
+                } else if (visited.add(succ)) {
+                    stack.push(succ);
+                    iters.push(successors.get(succ).iterator());
+                } else if (onCycle.contains(succ)) {
+                    onCycle.add(stack.peek());
+                }
+            } else {
+                Pointer node = stack.pop();
+                iters.pop();
+                if (onCycle.contains(node) && !stack.isEmpty()) {
+                    onCycle.add(stack.peek());
+                }
+            }
+        }
+        if (!onCycle.isEmpty()) {
+            onCycle.add(source);
+        }
+        return onCycle;
+    }
+
+    /**
+     * Merges given representatives into rep, including their edges.
+     * The filters of the edges from the merged pointers are kept on
+     * the edges from rep.
+     */
+    void merge(Pointer rep, Set<Pointer> pointers) {
+        for (Pointer pointer : pointers) {
+            if (pointer.equals(rep)) {
+                continue;
+            }
+            reps.put(pointer, rep);
+            members.put(rep, pointer);
+            members.putAll(rep, members.get(pointer));
+            members.removeAll(pointer);
+            for (Pointer succ : successors.get(pointer)) {
+                if (!pointers.contains(getRepOf(succ))) {
+                    Set<Type> edgeFilters = filters.get(pointer, succ);
+                    if (edgeFilters == null) {
+                        addEdge(rep, succ, null);
+                    } else {
+                        edgeFilters.forEach(f -> addEdge(rep, succ, f));
+                    }
+                }
+            }
+            successors.removeAll(pointer);
+            filters.removeAll(pointer);
+        }
+    }
 }
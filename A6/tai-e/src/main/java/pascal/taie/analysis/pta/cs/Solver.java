@@ -25,182 +25,268 @@ package pascal.taie.analysis.pta.cs;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
-import pascal.taie.analysis.graph.callgraph.CallGraphs;
-import pascal.taie.analysis.graph.callgraph.CallKind;
-import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.*;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.DemotingSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
-import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.Var;
-import pascal.taie.ir.stmt.*;
-import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    /**
+     * Number of methods demoted each time the budget is exceeded.
+     */
+    private static final int DEMOTION_BATCH = 16;
+
     private final AnalysisOptions options;
 
     private final HeapModel heapModel;
 
     private final ContextSelector contextSelector;
 
+    /**
+     * Time and memory budget, or null if no budget is given.
+     */
+    private final Budget budget;
+
+    /**
+     * Selector which demotes the methods with the most contexts when
+     * the budget is exceeded, or null if no budget is given.
+     */
+    private final DemotingSelector demotingSelector;
+
+    /**
+     * Periodic checkpoint of the solver state, or null if no checkpoint
+     * directory is given.
+     */
+    private final Checkpoint checkpoint;
+
     private CSManager csManager;
 
+    private PointsToSetFactory ptsFactory;
+
     private CSCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
 
     private WorkList workList;
 
+    private SolverRules rules;
+
+    /**
+     * PFG edges which have been checked by lazy cycle detection.
+     */
+    private MultiMap<Pointer, Pointer> checkedEdges;
+
+    private VarSubstitution varSubstitution;
+
+    /**
+     * Indexes of the CSVars obtained by {@link #getCSVar(Context, Var)}.
+     */
+    private BitSet knownCSVars;
+
+    /**
+     * CSVars which have been obtained but not substituted.
+     */
+    private Deque<CSVar> newCSVars;
+
+    private TypeSystem typeSystem;
+
+    /**
+     * Cache of subtype checks for type filtering.
+     */
+    private TwoKeyMap<Type, Type, Boolean> subtypeCache;
+
     private PointerAnalysisResult result;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
+        this(options, heapModel, contextSelector, true);
+    }
+
+    /**
+     * @param isMainAnalysis whether this solver runs the main analysis.
+     *                       Only the main analysis is limited by the budget
+     *                       and saves the checkpoints given by the options,
+     *                       and pre-analyses (e.g., of Scaler) ignore them.
+     */
+    Solver(AnalysisOptions options, HeapModel heapModel,
+           ContextSelector contextSelector, boolean isMainAnalysis) {
         this.options = options;
         this.heapModel = heapModel;
-        this.contextSelector = contextSelector;
+        this.budget = isMainAnalysis ? Budget.of(options) : null;
+        if (budget != null) {
+            this.demotingSelector = new DemotingSelector(contextSelector);
+            this.contextSelector = demotingSelector;
+        } else {
+            this.demotingSelector = null;
+            this.contextSelector = contextSelector;
+        }
+        this.checkpoint = isMainAnalysis ?
+                Checkpoint.of(options, this.contextSelector) : null;
     }
 
     void solve() {
+        if (budget != null) {
+            budget.start();
+        }
         initialize();
         analyze();
+        if (checkpoint != null) {
+            checkpoint.delete();
+        }
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
+        // the array-based manager by default, or the map-based one
+        // given option "cs-manager:map"
+        String pts = options.getString("pts");
+        String ptsKind = pts != null ? pts : "hash";
+        csManager = "map".equals(options.getString("cs-manager")) ?
+                new MapBasedCSManager(ptsKind) : new ArrayCSManager(ptsKind);
+        ptsFactory = csManager.getPointsToSetFactory();
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
-        // process program entry, i.e., main method
-        Context defContext = contextSelector.getEmptyContext();
-        JMethod main = World.get().getMainMethod();
-        CSMethod csMethod = csManager.getCSMethod(defContext, main);
-        callGraph.addEntryMethod(csMethod);
-        addReachable(csMethod);
+        checkedEdges = Maps.newMultiMap();
+        varSubstitution = new VarSubstitution();
+        knownCSVars = new BitSet();
+        newCSVars = new ArrayDeque<>();
+        typeSystem = World.get().getTypeSystem();
+        subtypeCache = Maps.newTwoKeyMap();
+        rules = new Rules();
+        if (checkpoint != null && checkpoint.canResume()) {
+            checkpoint.restore(contextSelector, heapModel, csManager,
+                    callGraph, pointerFlowGraph, workList, demotingSelector);
+        } else {
+            // process program entry, i.e., main method
+            Context defContext = contextSelector.getEmptyContext();
+            JMethod main = World.get().getMainMethod();
+            CSMethod csMethod = csManager.getCSMethod(defContext, main);
+            callGraph.addEntryMethod(csMethod);
+            rules.addReachable(csMethod);
+        }
+        if (checkpoint != null) {
+            checkpoint.start();
+        }
     }
 
     /**
-     * Processes new reachable context-sensitive method.
+     * @return the CSVar for given context and variable, and records it
+     * for {@link #substituteVars()} if it is obtained for the first time.
      */
-    private void addReachable(CSMethod csMethod) {
-        // TODO - finish me
-        if (callGraph.addReachableMethod(csMethod)){
-            for (var stmt : csMethod.getMethod().getIR().getStmts()){
-                stmt.accept(new StmtProcessor(csMethod));
-            }
+    private CSVar getCSVar(Context context, Var var) {
+        CSVar csVar = csManager.getCSVar(context, var);
+        if (!knownCSVars.get(csVar.getIndex())) {
+            knownCSVars.set(csVar.getIndex());
+            newCSVars.add(csVar);
         }
+        return csVar;
     }
 
     /**
-     * Processes the statements in context-sensitive new reachable methods.
+     * Rules of the analysis which add the entries to {@link #workList},
+     * add the edges to {@link #pointerFlowGraph} (merging the pointers
+     * on cycles), and record new CSVars for {@link #substituteVars()}.
      */
-    private class StmtProcessor implements StmtVisitor<Void> {
-
-        private final CSMethod csMethod;
-
-        private final Context context;
+    private class Rules extends SolverRules {
 
-        private StmtProcessor(CSMethod csMethod) {
-            this.csMethod = csMethod;
-            this.context = csMethod.getContext();
+        private Rules() {
+            super(Solver.this.heapModel, Solver.this.contextSelector,
+                    Solver.this.csManager, Solver.this.callGraph);
         }
 
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
         @Override
-        public Void visit(New stmt){
-            var Ptr = csManager.getCSVar(csMethod.getContext(), stmt.getLValue());
-            Obj obj = heapModel.getObj(stmt);
-            CSObj csObj = csManager.getCSObj(contextSelector.selectHeapContext(csMethod,obj),
-                    obj);
-            PointsToSet pointsToSet = PointsToSetFactory.make(csObj);
-            workList.addEntry(Ptr, pointsToSet);
-            return StmtVisitor.super.visit(stmt); // gen by IDEA, NULL in manual.
+        void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+            workList.addEntry(pointer, pointsToSet);
         }
 
         @Override
-        public Void visit(Copy stmt) {
-            Pointer source = csManager.getCSVar(csMethod.getContext(), stmt.getRValue());
-            Pointer target = csManager.getCSVar(csMethod.getContext(), stmt.getLValue());
-            addPFGEdge(source, target);
-            return StmtVisitor.super.visit(stmt);
+        void addPFGEdge(Pointer source, Pointer target, Type filter) {
+            Solver.this.addPFGEdge(source, target, filter);
         }
 
         @Override
-        public Void visit(LoadField stmt) {
-            if (!stmt.isStatic()){
-                return null;
-            }
-            Pointer target = csManager.getCSVar(csMethod.getContext(), stmt.getLValue());
-            Pointer source = csManager.getStaticField(stmt.getFieldRef().resolve());
-            addPFGEdge(source, target);
-            return StmtVisitor.super.visit(stmt);
+        boolean isSubtype(Type supertype, Type subtype) {
+            return subtypeCache.computeIfAbsent(supertype, subtype,
+                    typeSystem::isSubtype);
         }
 
         @Override
-        public Void visit(StoreField stmt) {
-            if (!stmt.isStatic()){
-                return null;
-            }
-            Pointer source = csManager.getCSVar(csMethod.getContext(), stmt.getRValue());
-            Pointer target = csManager.getStaticField(stmt.getFieldRef().resolve());
-            addPFGEdge(source, target);
-            return StmtVisitor.super.visit(stmt);
-        }
-
-        @Override
-        public Void visit(Invoke stmt) {
-            if (!stmt.isStatic()){
-                return null;
-            }
-            JMethod method = resolveCallee(null, stmt);
-            var callSite = csManager.getCSCallSite(context, stmt);
-            var context = contextSelector.selectContext(callSite, method);
-            var csMethod = csManager.getCSMethod(context, method);
-            if (callGraph.addEdge(new Edge<>(CallKind.STATIC, callSite, csMethod))){
-                addReachable(csMethod);
-                passArgs(null, stmt, context, callSite);
-            }
-            return StmtVisitor.super.visit(stmt);
+        CSVar getCSVar(Context context, Var var) {
+            return Solver.this.getCSVar(context, var);
         }
     }
 
-    private void passArgs(CSObj recv, Invoke stmt, Context context, CSCallSite csCallSite){
-        JMethod jMethod = resolveCallee(recv, stmt);
-        Context cTarget = contextSelector.selectContext(csCallSite, recv, jMethod);
-        for (int i = 0; i < jMethod.getParamCount(); i++) {
-            Pointer source = csManager.getCSVar(context, stmt.getInvokeExp().getArg(i));
-            Pointer target = csManager.getCSVar(cTarget, jMethod.getIR().getParam(i));
-            addPFGEdge(source, target);
-        }
-        if (stmt.getResult() == null)
-            return;
-        Pointer target = csManager.getCSVar(context, stmt.getResult());
-        for (Var ret : jMethod.getIR().getReturnVars()) {
-            Pointer source = csManager.getCSVar(cTarget, ret);
-            addPFGEdge(source, target);
+    /**
+     * Merges the CSVars obtained since the last call with the CSVars of
+     * the variables found equivalent by {@link VarSubstitution} in the
+     * same contexts. The CSVars are merged only after both of them have
+     * been created, so that no CSVar is created for a variable which is
+     * never used by the analysis.
+     */
+    private void substituteVars() {
+        CSVar csVar;
+        while ((csVar = newCSVars.poll()) != null) {
+            Context context = csVar.getContext();
+            for (Var var : varSubstitution.getEquivalentVars(csVar.getVar())) {
+                CSVar equivalent = csManager.getCSVarsOf(var)
+                        .stream()
+                        .filter(v -> v.getContext().equals(context))
+                        .findFirst()
+                        .orElse(null);
+                if (equivalent != null) {
+                    // the existing equivalent CSVars have been merged
+                    Pointer repPtr = pointerFlowGraph.getRepOf(equivalent);
+                    Pointer ptr = pointerFlowGraph.getRepOf(csVar);
+                    if (!repPtr.equals(ptr)) {
+                        collapse(repPtr, Set.of(repPtr, ptr));
+                    }
+                    break;
+                }
+            }
         }
     }
 
     /**
-     * Adds an edge "source -> target" to the PFG.
+     * Adds an edge "source -> target" with type filter to the PFG.
+     *
+     * @param filter the type filter of the edge, or null if no filter.
      */
-    private void addPFGEdge(Pointer source, Pointer target) {
+    private void addPFGEdge(Pointer source, Pointer target, Type filter) {
         // TODO - finish me
-        if (pointerFlowGraph.addEdge(source, target)){
-            if (!source.getPointsToSet().isEmpty()){
-                workList.addEntry(target, source.getPointsToSet());
+        source = pointerFlowGraph.getRepOf(source);
+        target = pointerFlowGraph.getRepOf(target);
+        if (source.equals(target)) { // the edge is inside a merged cycle
+            return;
+        }
+        if (pointerFlowGraph.addEdge(source, target, filter)){
+            var pts = rules.filter(source.getPointsToSet(), filter);
+            if (!pts.isEmpty()){
+                workList.addEntry(target, pts);
             }
         }
     }
@@ -210,39 +296,60 @@ class Solver {
      */
     private void analyze() {
         // TODO - finish me
+        substituteVars();
         while (!workList.isEmpty()){
+            if (budget != null && budget.isExceeded() && demoteMethods()) {
+                budget.startGracePeriod();
+            }
+            if (checkpoint != null && checkpoint.isDue()) {
+                checkpoint.save(csManager, callGraph, pointerFlowGraph,
+                        workList, getDemotedMethods());
+            }
             var entry = workList.pollEntry();
-            var n = entry.pointer();
+            var n = pointerFlowGraph.getRepOf(entry.pointer());
             var pts = entry.pointsToSet();
             var delta = propagate(n, pts);
-            if (n instanceof CSVar csVar){
-                for (var obj : delta.getObjects()){
-                    for (var loadField : csVar.getVar().getLoadFields()){
-                        var target = csManager.getCSVar(csVar.getContext(), loadField.getLValue());
-                        JField jField = loadField.getFieldRef().resolve();
-                        var source = csManager.getInstanceField(obj, jField);
-                        addPFGEdge(source, target);
-                    }
-                    for (var storeField : csVar.getVar().getStoreFields()){
-                        var source = csManager.getCSVar(csVar.getContext(),storeField.getRValue());
-                        JField jField = storeField.getFieldRef().resolve();
-                        var target = csManager.getInstanceField(obj, jField);
-                        addPFGEdge(source, target);
-                    }
-                    for (var loadArray : csVar.getVar().getLoadArrays()){
-                        var target = csManager.getCSVar(csVar.getContext(), loadArray.getLValue());
-                        var source = csManager.getArrayIndex(obj);
-                        addPFGEdge(source, target);
-                    }
-                    for (var storeArray : csVar.getVar().getStoreArrays()){
-                        var source = csManager.getCSVar(csVar.getContext(), storeArray.getRValue());
-                        var target = csManager.getArrayIndex(obj);
-                        addPFGEdge(source, target);
-                    }
-                    processCall(csVar, obj);
+            if (!delta.isEmpty()) {
+                rules.processNewObjects(n, delta);
+                for (var member : pointerFlowGraph.getMembersOf(n)) {
+                    rules.processNewObjects(member, delta);
                 }
             }
+            substituteVars();
+        }
+    }
+
+    /**
+     * Demotes the methods which have the most contexts to shorter
+     * contexts, so that the rest of the analysis creates fewer contexts.
+     * The analysis continues from its current state.
+     *
+     * @return true if any method is demoted, otherwise false (i.e., no
+     * method is analyzed in more than one context).
+     */
+    private boolean demoteMethods() {
+        Map<JMethod, Integer> counts = Maps.newMap();
+        Map<JMethod, Integer> limits = Maps.newMap();
+        callGraph.reachableMethods().forEach(csMethod -> {
+            JMethod method = csMethod.getMethod();
+            counts.merge(method, 1, Integer::sum);
+            int limit = demotingSelector.getLimitOf(method);
+            limits.merge(method, limit >= 0 ? limit :
+                    csMethod.getContext().getLength(), Math::max);
+        });
+        List<JMethod> demoted = counts.keySet()
+                .stream()
+                .filter(m -> counts.get(m) > 1 && limits.get(m) > 0)
+                .sorted(Comparator.comparing(counts::get, Comparator.reverseOrder()))
+                .limit(DEMOTION_BATCH)
+                .toList();
+        for (JMethod method : demoted) {
+            int limit = limits.get(method) - 1;
+            demotingSelector.demote(method, limit);
+            logger.info("Budget exceeded, demoted {} ({} contexts) to {}-limited contexts",
+                    method, counts.get(method), limit);
         }
+        return !demoted.isEmpty();
     }
 
     /**
@@ -251,59 +358,118 @@ class Solver {
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // TODO - finish me
-        var delta = PointsToSetFactory.make();
         if (pointsToSet.isEmpty()){
+            return ptsFactory.make();
+        }
+        var delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (delta.isEmpty()) {
             return delta;
         }
-        var pt_n = pointer.getPointsToSet();
-        for (var pt : pointsToSet){
-            if (pt_n.contains(pt))
+        // copy the successors as merging cycles modifies them
+        for (var succ : List.copyOf(pointerFlowGraph.getSuccsOf(pointer))){
+            var t = pointerFlowGraph.getRepOf(succ);
+            if (t.equals(pointer)) {
                 continue;
-            pointer.getPointsToSet().addObject(pt);
-            delta.addObject(pt);
-        }
-        for (var pt : pointerFlowGraph.getSuccsOf(pointer)){
-            workList.addEntry(pt, delta);
+            }
+            var filters = pointerFlowGraph.getFiltersOf(pointer, succ);
+            if (filters != null) {
+                var pts = rules.filter(delta, filters);
+                if (!pts.isEmpty()) {
+                    workList.addEntry(t, pts);
+                }
+                continue;
+            }
+            if (isCycleCandidate(pointer, t, delta)) {
+                Set<Pointer> cycle = pointerFlowGraph.findCycle(pointer, t);
+                if (!cycle.isEmpty()) {
+                    collapse(pointer, cycle);
+                    continue;
+                }
+            }
+            workList.addEntry(t, delta);
         }
         return delta;
     }
 
     /**
-     * Processes instance calls when points-to set of the receiver variable changes.
-     *
-     * @param recv    the receiver variable
-     * @param recvObj set of new discovered objects pointed by the variable.
+     * Lazy cycle detection: the pointers on a PFG cycle end up with
+     * the same points-to set, so a cycle is only searched from edge
+     * source -> target when pt(target) has already caught up with
+     * pt(source) (excluding the delta being propagated). Each edge is
+     * checked at most once, and the edges with type filters are never
+     * checked.
      */
-    private void processCall(CSVar recv, CSObj recvObj) {
-        // TODO - finish me
-        if (recv == null){
-            return;
+    private boolean isCycleCandidate(Pointer source, Pointer target,
+                                     PointsToSet delta) {
+        var sourcePts = source.getPointsToSet();
+        var targetPts = target.getPointsToSet();
+        int oldSize = sourcePts.size() - delta.size();
+        if (oldSize == 0 || targetPts.size() < oldSize ||
+                checkedEdges.contains(source, target)) {
+            return false;
         }
-        for (Invoke invoke : recv.getVar().getInvokes()){
-            var method = resolveCallee(recvObj, invoke);
-            var mThis = method.getIR().getThis();
-            var csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
-            var cThis = contextSelector.selectContext(csCallSite, recvObj, method);
-            var csMethod = csManager.getCSMethod(cThis, method);
-            workList.addEntry(csManager.getCSVar(cThis, mThis), PointsToSetFactory.make(recvObj));
-            if (callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(invoke), csCallSite, csMethod))){
-                addReachable(csMethod);
-                passArgs(recvObj, invoke, recv.getContext(), csCallSite);
+        for (var obj : sourcePts) {
+            if (!delta.contains(obj) && !targetPts.contains(obj)) {
+                return false;
             }
         }
+        checkedEdges.put(source, target);
+        return true;
     }
 
     /**
-     * Resolves the callee of a call site with the receiver object.
-     *
-     * @param recv the receiver object of the method call. If the callSite
-     *             is static, this parameter is ignored (i.e., can be null).
-     * @param callSite the call site to be resolved.
-     * @return the resolved callee.
+     * Merges the pointers on a PFG cycle (or other equivalent pointers)
+     * into rep. All merged pointers share the points-to set of rep, so that
+     * the points-to set of each variable is still available after
+     * the analysis.
+     */
+    private void collapse(Pointer rep, Set<Pointer> cycle) {
+        var union = ptsFactory.make();
+        for (var pointer : cycle) {
+            union.addAll(pointer.getPointsToSet());
+        }
+        // objects that each merged pointer (and its members) has not seen
+        Map<Pointer, PointsToSet> diffs = Maps.newMap();
+        Map<Pointer, List<Pointer>> oldMembers = Maps.newMap();
+        for (var pointer : cycle) {
+            var diff = ptsFactory.make();
+            var pts = pointer.getPointsToSet();
+            for (var obj : union) {
+                if (!pts.contains(obj)) {
+                    diff.addObject(obj);
+                }
+            }
+            diffs.put(pointer, diff);
+            oldMembers.put(pointer,
+                    List.copyOf(pointerFlowGraph.getMembersOf(pointer)));
+        }
+        pointerFlowGraph.merge(rep, cycle);
+        var repPts = rep.getPointsToSet();
+        repPts.addAll(union);
+        for (var member : pointerFlowGraph.getMembersOf(rep)) {
+            member.setPointsToSet(repPts);
+        }
+        for (var succ : pointerFlowGraph.getSuccsOf(rep)) {
+            var pts = rules.filter(repPts, pointerFlowGraph.getFiltersOf(rep, succ));
+            if (!pts.isEmpty()) {
+                workList.addEntry(succ, pts);
+            }
+        }
+        diffs.forEach((pointer, diff) -> {
+            if (!diff.isEmpty()) {
+                rules.processNewObjects(pointer, diff);
+                oldMembers.get(pointer).forEach(m -> rules.processNewObjects(m, diff));
+            }
+        });
+    }
+
+    /**
+     * @return map from the methods demoted due to exceeded budget
+     * to their context length limits.
      */
-    private JMethod resolveCallee(CSObj recv, Invoke callSite) {
-        Type type = recv != null ? recv.getObject().getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+    Map<JMethod, Integer> getDemotedMethods() {
+        return demotingSelector != null ?
+                demotingSelector.getDemotedMethods() : Map.of();
     }
 
     PointerAnalysisResult getResult() {
@@ -0,0 +1,330 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.CastExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StmtVisitor;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+
+import java.util.Set;
+
+/**
+ * Rules of context-sensitive pointer analysis shared by {@link Solver}
+ * and {@link ParallelSolver}, i.e., processing new reachable methods,
+ * instance field/array accesses and calls, and type filtering.
+ * <p>
+ * The rules only decide which work-list entries and PFG edges to add,
+ * and the solvers decide how to add them, i.e., by implementing
+ * {@link #addEntry} and {@link #addPFGEdge}. The other methods that
+ * access the services of World can be overridden to guard or cache
+ * the accesses.
+ */
+abstract class SolverRules {
+
+    final HeapModel heapModel;
+
+    final ContextSelector contextSelector;
+
+    final CSManager csManager;
+
+    final CSCallGraph callGraph;
+
+    final PointsToSetFactory ptsFactory;
+
+    SolverRules(HeapModel heapModel, ContextSelector contextSelector,
+                CSManager csManager, CSCallGraph callGraph) {
+        this.heapModel = heapModel;
+        this.contextSelector = contextSelector;
+        this.csManager = csManager;
+        this.callGraph = callGraph;
+        this.ptsFactory = csManager.getPointsToSetFactory();
+    }
+
+    /**
+     * Adds an entry to the work list.
+     */
+    abstract void addEntry(Pointer pointer, PointsToSet pointsToSet);
+
+    /**
+     * Adds an edge "source -> target" with type filter to the PFG, and
+     * propagates pt(source) along the edge if the edge is new or relaxed.
+     *
+     * @param filter the type filter of the edge, or null if no filter.
+     */
+    abstract void addPFGEdge(Pointer source, Pointer target, Type filter);
+
+    abstract boolean isSubtype(Type supertype, Type subtype);
+
+    CSVar getCSVar(Context context, Var var) {
+        return csManager.getCSVar(context, var);
+    }
+
+    Obj getObj(New allocSite) {
+        return heapModel.getObj(allocSite);
+    }
+
+    IR getIR(JMethod method) {
+        return method.getIR();
+    }
+
+    /**
+     * Resolves the callee of a call site with the receiver object.
+     *
+     * @param recv the receiver object of the method call. If the callSite
+     *             is static, this parameter is ignored (i.e., can be null).
+     * @param callSite the call site to be resolved.
+     * @return the resolved callee.
+     */
+    JMethod resolveCallee(CSObj recv, Invoke callSite) {
+        Type type = recv != null ? recv.getObject().getType() : null;
+        return CallGraphs.resolveCallee(type, callSite);
+    }
+
+    /**
+     * Processes new reachable context-sensitive method.
+     */
+    void addReachable(CSMethod csMethod) {
+        // the call graph builds the IR when adding the method
+        IR ir = getIR(csMethod.getMethod());
+        if (callGraph.addReachableMethod(csMethod)) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            for (Stmt stmt : ir.getStmts()) {
+                stmt.accept(stmtProcessor);
+            }
+        }
+    }
+
+    /**
+     * Processes the statements in context-sensitive new reachable methods.
+     */
+    private class StmtProcessor implements StmtVisitor<Void> {
+
+        private final CSMethod csMethod;
+
+        private final Context context;
+
+        private StmtProcessor(CSMethod csMethod) {
+            this.csMethod = csMethod;
+            this.context = csMethod.getContext();
+        }
+
+        @Override
+        public Void visit(New stmt) {
+            Pointer ptr = getCSVar(context, stmt.getLValue());
+            Obj obj = getObj(stmt);
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            addEntry(ptr, ptsFactory.make(csManager.getCSObj(heapContext, obj)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            Pointer source = getCSVar(context, stmt.getRValue());
+            Pointer target = getCSVar(context, stmt.getLValue());
+            addPFGEdge(source, target, null);
+            return null;
+        }
+
+        @Override
+        public Void visit(Cast stmt) {
+            CastExp cast = stmt.getRValue();
+            if (cast.getCastType() instanceof ReferenceType) {
+                Pointer source = getCSVar(context, cast.getValue());
+                Pointer target = getCSVar(context, stmt.getLValue());
+                addPFGEdge(source, target, cast.getCastType());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                Pointer target = getCSVar(context, stmt.getLValue());
+                Pointer source = csManager.getStaticField(stmt.getFieldRef().resolve());
+                addPFGEdge(source, target, null);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                Pointer source = getCSVar(context, stmt.getRValue());
+                Pointer target = csManager.getStaticField(stmt.getFieldRef().resolve());
+                addPFGEdge(source, target, null);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeContext = contextSelector.selectContext(csCallSite, callee);
+                CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+                if (callGraph.addEdge(new Edge<>(CallKind.STATIC, csCallSite, csCallee))) {
+                    addReachable(csCallee);
+                    passArgs(stmt, context, csCallee);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Adds the edges from the arguments of the call site to
+     * the parameters of the callee, and from the return variables
+     * of the callee to the result of the call site.
+     */
+    private void passArgs(Invoke callSite, Context context, CSMethod csCallee) {
+        Context calleeContext = csCallee.getContext();
+        IR ir = getIR(csCallee.getMethod());
+        for (int i = 0; i < ir.getParams().size(); i++) {
+            Pointer source = getCSVar(context, callSite.getInvokeExp().getArg(i));
+            Var param = ir.getParam(i);
+            Pointer target = getCSVar(calleeContext, param);
+            addPFGEdge(source, target, param.getType());
+        }
+        if (callSite.getResult() != null) {
+            Pointer target = getCSVar(context, callSite.getResult());
+            for (Var ret : ir.getReturnVars()) {
+                Pointer source = getCSVar(calleeContext, ret);
+                addPFGEdge(source, target, null);
+            }
+        }
+    }
+
+    /**
+     * Processes the objects newly pointed to by a pointer, i.e.,
+     * the field/array accesses and instance calls on the variable
+     * if the pointer is a variable.
+     */
+    void processNewObjects(Pointer pointer, PointsToSet delta) {
+        if (!(pointer instanceof CSVar csVar)) {
+            return;
+        }
+        Context context = csVar.getContext();
+        Var var = csVar.getVar();
+        for (CSObj obj : delta) {
+            for (LoadField loadField : var.getLoadFields()) {
+                Pointer target = getCSVar(context, loadField.getLValue());
+                JField field = loadField.getFieldRef().resolve();
+                addPFGEdge(csManager.getInstanceField(obj, field), target, null);
+            }
+            for (StoreField storeField : var.getStoreFields()) {
+                Pointer source = getCSVar(context, storeField.getRValue());
+                JField field = storeField.getFieldRef().resolve();
+                addPFGEdge(source, csManager.getInstanceField(obj, field), null);
+            }
+            for (LoadArray loadArray : var.getLoadArrays()) {
+                Pointer target = getCSVar(context, loadArray.getLValue());
+                addPFGEdge(csManager.getArrayIndex(obj), target, null);
+            }
+            for (StoreArray storeArray : var.getStoreArrays()) {
+                Pointer source = getCSVar(context, storeArray.getRValue());
+                addPFGEdge(source, csManager.getArrayIndex(obj), null);
+            }
+            processCall(csVar, obj);
+        }
+    }
+
+    /**
+     * Processes instance calls when points-to set of the receiver variable changes.
+     *
+     * @param recv    the receiver variable
+     * @param recvObj set of new discovered objects pointed by the variable.
+     */
+    private void processCall(CSVar recv, CSObj recvObj) {
+        for (Invoke invoke : recv.getVar().getInvokes()) {
+            JMethod callee = resolveCallee(recvObj, invoke);
+            CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
+            Context calleeContext = contextSelector.selectContext(csCallSite, recvObj, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            addEntry(getCSVar(calleeContext, getIR(callee).getThis()),
+                    ptsFactory.make(recvObj));
+            if (callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(invoke), csCallSite, csCallee))) {
+                addReachable(csCallee);
+                passArgs(invoke, recv.getContext(), csCallee);
+            }
+        }
+    }
+
+    /**
+     * @return the objects in pts whose types are subtypes of given type.
+     * If type is null, then returns pts itself.
+     */
+    PointsToSet filter(PointsToSet pts, Type type) {
+        return type == null ? pts : filter(pts, Set.of(type));
+    }
+
+    /**
+     * @return the objects in pts whose types are subtypes of any of
+     * given types. If types is null, then returns pts itself.
+     */
+    PointsToSet filter(PointsToSet pts, Set<Type> types) {
+        if (types == null) {
+            return pts;
+        }
+        PointsToSet result = ptsFactory.make();
+        for (CSObj obj : pts) {
+            for (Type type : types) {
+                if (isSubtype(type, obj.getObject().getType())) {
+                    result.addObject(obj);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
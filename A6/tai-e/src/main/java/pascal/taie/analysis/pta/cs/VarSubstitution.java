@@ -0,0 +1,225 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.World;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.CastExp;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Variable substitution based on hash-based value numbering (HVN).
+ * <p>
+ * This class assigns a value number to each variable, such that two
+ * variables of one method with the same value number always have the
+ * same points-to set in each context of the method. The value number of
+ * a variable is the union of the value numbers of its definitions, where
+ * <ul>
+ *     <li>a copy has the number of its source,</li>
+ *     <li>each allocation site and each call site has a number of its
+ *     own,</li>
+ *     <li>a field/array load and a cast have a number hashed from
+ *     the field (or cast type) and the number of the base (or source)
+ *     variable,</li>
+ *     <li>and other definitions, parameters and {@code this} variables
+ *     have fresh numbers.</li>
+ * </ul>
+ * Different from the context-insensitive substitution, the results of
+ * calls are not numbered from the return variables of the callees, and
+ * variables of different methods are never equivalent, as the callee
+ * contexts (and thus the points-to sets of the results) may depend on
+ * the call sites.
+ * <p>
+ * The numbers of the variables in the application methods are computed
+ * before solving, and the other variables are numbered when their methods
+ * become reachable, so that the IR of the whole library is not built.
+ */
+class VarSubstitution {
+
+    private final Map<Var, Integer> numbers = Maps.newMap();
+
+    /**
+     * Map from a hashed definition (or a union of numbers)
+     * to its value number.
+     */
+    private final Map<Object, Integer> keyNumbers = Maps.newMap();
+
+    /**
+     * Fresh numbers given to the variables on cycles of definitions,
+     * which are treated conservatively as opaque.
+     */
+    private final Map<Var, Integer> cycleNumbers = Maps.newMap();
+
+    private final Set<Var> inProgress = Sets.newSet();
+
+    /**
+     * Map from a variable to its definitions.
+     */
+    private final MultiMap<Var, Stmt> defs = Maps.newMultiMap();
+
+    /**
+     * Map from a method to its variables grouped by value numbers.
+     * Only the groups with more than one variable are kept.
+     */
+    private final Map<JMethod, MultiMap<Integer, Var>> groups = Maps.newMap();
+
+    private int counter = 0;
+
+    /**
+     * Numbers the variables of all application methods.
+     */
+    VarSubstitution() {
+        this(World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .toList());
+    }
+
+    /**
+     * Numbers the variables of given methods.
+     */
+    VarSubstitution(Collection<JMethod> methods) {
+        methods.forEach(this::getGroups);
+    }
+
+    /**
+     * @return the other variables of the method declaring given variable
+     * which have the same value number as the given one. The variables of
+     * primitive types are not substituted, and have no equivalent variables.
+     */
+    Set<Var> getEquivalentVars(Var var) {
+        if (!(var.getType() instanceof ReferenceType)) {
+            return Set.of();
+        }
+        Set<Var> result = Sets.newHybridSet(
+                getGroups(var.getMethod()).get(numbers.get(var)));
+        result.remove(var);
+        return result;
+    }
+
+    private MultiMap<Integer, Var> getGroups(JMethod method) {
+        return groups.computeIfAbsent(method, m -> {
+            IR ir = m.getIR();
+            for (Stmt stmt : ir.getStmts()) {
+                stmt.getDef().ifPresent(def -> {
+                    if (def instanceof Var var) {
+                        defs.put(var, stmt);
+                    }
+                });
+            }
+            MultiMap<Integer, Var> all = Maps.newMultiMap();
+            for (Var var : ir.getVars()) {
+                if (var.getType() instanceof ReferenceType) {
+                    all.put(getNumber(var), var);
+                }
+            }
+            MultiMap<Integer, Var> result = Maps.newMultiMap();
+            all.forEachSet((number, vars) -> {
+                if (vars.size() > 1) {
+                    result.putAll(number, vars);
+                }
+            });
+            return result;
+        });
+    }
+
+    private int getNumber(Var var) {
+        Integer number = numbers.get(var);
+        if (number != null) {
+            return number;
+        }
+        if (!inProgress.add(var)) {
+            return cycleNumbers.computeIfAbsent(var, v -> counter++);
+        }
+        Set<Integer> defNumbers = Sets.newHybridSet();
+        IR ir = var.getMethod().getIR();
+        if (ir.getParams().contains(var) || var.equals(ir.getThis())) {
+            defNumbers.add(counter++);
+        }
+        for (Stmt def : defs.get(var)) {
+            defNumbers.add(getNumber(def));
+        }
+        inProgress.remove(var);
+        if (cycleNumbers.containsKey(var)) {
+            number = cycleNumbers.get(var);
+        } else if (defNumbers.size() == 1) {
+            number = defNumbers.iterator().next();
+        } else {
+            // a variable without definitions has a fresh number too
+            number = keyNumbers.computeIfAbsent(defNumbers, n -> counter++);
+        }
+        numbers.put(var, number);
+        return number;
+    }
+
+    /**
+     * @return the value number of given definition.
+     */
+    private int getNumber(Stmt def) {
+        if (def instanceof Copy copy) {
+            return getNumber(copy.getRValue());
+        } else if (def instanceof Cast cast) {
+            CastExp exp = cast.getRValue();
+            return getKeyNumber(List.of(exp.getCastType(),
+                    getNumber(exp.getValue())));
+        } else if (def instanceof LoadField load) {
+            if (load.isStatic()) {
+                return getKeyNumber(load.getFieldRef().resolve());
+            }
+            Var base = ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+            return getKeyNumber(List.of(load.getFieldRef().resolve(),
+                    getNumber(base)));
+        } else if (def instanceof LoadArray load) {
+            return getKeyNumber(List.of(LoadArray.class,
+                    getNumber(load.getArrayAccess().getBase())));
+        } else {
+            // allocation sites, call sites and other definitions
+            return getKeyNumber(def);
+        }
+    }
+
+    private int getKeyNumber(Object key) {
+        return keyNumbers.computeIfAbsent(key, k -> counter++);
+    }
+}
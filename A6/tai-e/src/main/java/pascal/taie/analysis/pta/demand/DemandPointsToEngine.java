@@ -0,0 +1,503 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.demand;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.cs.selector.CISelector;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.CastExp;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.util.AbstractResultHolder;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Demand-driven, context-insensitive points-to analysis, which computes
+ * the points-to sets of the queried variables only.
+ * <p>
+ * A query traverses the assignments backwards from the queried variable
+ * (CFL-reachability over the flows-to relation) on the CHA call graph.
+ * A load x = w.f reaches the stores y.f = z only if w and y may alias,
+ * i.e., the field accesses are matched, and a call edge is traversed only
+ * if the receiver may point to objects dispatching to the callee. Both
+ * checks issue sub-queries. Each top-level query has a budget of
+ * traversal steps; when it runs out (or the sub-queries are cyclic),
+ * the checks conservatively succeed, which falls back to the field-based
+ * and CHA-based approximations. Thus the results are always sound, and
+ * they are refined as far as the budget allows.
+ * <p>
+ * The results computed without approximations are memoized across
+ * queries. This class answers the context-insensitive queries of
+ * {@link PointerAnalysisResult} for the resolved variables, and the call
+ * graph is the CHA call graph. The context-sensitive queries are answered
+ * by lifting these results to the empty context, except that the field
+ * and array pointers are empty, as their points-to sets are computed
+ * on demand by {@link #getPointsToSet(Var, JField)} and
+ * {@link #getPointsToSet(JField)}.
+ */
+public class DemandPointsToEngine extends AbstractResultHolder
+        implements PointerAnalysisResult {
+
+    /**
+     * Default number of traversal steps of each top-level query.
+     */
+    private static final int DEFAULT_BUDGET = 10000;
+
+    /**
+     * Maximum depth of nested sub-queries.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    private final HeapModel heapModel;
+
+    private final int budget;
+
+    private final ProgramIndex program;
+
+    /**
+     * Memoized points-to sets computed without approximations.
+     */
+    private final Map<Var, Set<Obj>> cache = Maps.newMap();
+
+    /**
+     * Points-to sets computed in current top-level query,
+     * including the approximated ones.
+     */
+    private final Map<Var, Set<Obj>> queryCache = Maps.newMap();
+
+    /**
+     * Points-to sets of the variables resolved by top-level queries.
+     */
+    private final Map<Var, Set<Obj>> resolved = Maps.newMap();
+
+    /**
+     * Stack of the ongoing (sub-)queries.
+     */
+    private final Deque<Query> queries = new ArrayDeque<>();
+
+    private final Set<Var> queriedVars = Sets.newSet();
+
+    /**
+     * Manages the context-sensitive elements lifted from the results,
+     * which are all in the empty context. The lifted points-to sets are
+     * hash sets made by the factory of this manager, thus lifting never
+     * touches the representation or the object indexer of the points-to
+     * sets of other analyses, e.g., CSPTA running in the same process.
+     */
+    private final CSManager csManager = new MapBasedCSManager("hash");
+
+    private final Context emptyContext = new CISelector().getEmptyContext();
+
+    /**
+     * The CHA call graph lifted to the empty context, built on demand.
+     */
+    private CSCallGraph csCallGraph;
+
+    /**
+     * Remaining steps of current top-level query.
+     */
+    private int steps;
+
+    /**
+     * Creates an engine with the heap model and the budget (option
+     * "budget") given by the options.
+     */
+    public DemandPointsToEngine(AnalysisOptions options) {
+        this(new AllocationSiteBasedModel(options),
+                options.get("budget") != null ?
+                        options.getInt("budget") : DEFAULT_BUDGET);
+    }
+
+    /**
+     * @param budget number of traversal steps of each top-level query.
+     */
+    public DemandPointsToEngine(HeapModel heapModel, int budget) {
+        this.heapModel = heapModel;
+        this.budget = budget;
+        this.program = new ProgramIndex();
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        Set<Obj> pts = resolved.get(var);
+        if (pts == null) {
+            steps = budget;
+            pts = Collections.unmodifiableSet(query(var));
+            queryCache.clear();
+            resolved.put(var, pts);
+        }
+        return pts;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var, JField field) {
+        Set<Obj> basePts = getPointsToSet(var);
+        Set<Obj> result = Sets.newHybridSet();
+        for (StoreField store : program.getStoresOf(field)) {
+            if (!store.isStatic()) {
+                Var base = ((InstanceFieldAccess) store.getFieldAccess()).getBase();
+                if (!Collections.disjoint(basePts, getPointsToSet(base))) {
+                    result.addAll(getPointsToSet(store.getRValue()));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        Set<Obj> result = Sets.newHybridSet();
+        for (StoreField store : program.getStoresOf(field)) {
+            if (store.isStatic()) {
+                result.addAll(getPointsToSet(store.getRValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the variables resolved by the queries so far.
+     */
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(resolved.keySet());
+    }
+
+    /**
+     * @return the objects pointed to by the variables resolved so far.
+     */
+    @Override
+    public Collection<Obj> getObjects() {
+        Set<Obj> objs = Sets.newSet();
+        resolved.values().forEach(objs::addAll);
+        return objs;
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        return program.getCallGraph();
+    }
+
+    /**
+     * @return the variables resolved so far, lifted to the empty context.
+     */
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return getVars().stream().map(this::lift).toList();
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return List.of();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return List.of();
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return List.of();
+    }
+
+    /**
+     * @return the objects pointed to by the variables resolved so far,
+     * lifted to the empty context.
+     */
+    @Override
+    public Collection<CSObj> getCSObjects() {
+        return getObjects().stream().map(this::lift).toList();
+    }
+
+    /**
+     * @return the points-to set of the variable of given CS variable,
+     * lifted to the empty context.
+     */
+    @Override
+    public Set<CSObj> getPointsToSet(CSVar var) {
+        Set<CSObj> result = Sets.newHybridSet();
+        getPointsToSet(var.getVar()).forEach(obj -> result.add(lift(obj)));
+        return result;
+    }
+
+    /**
+     * @return the CHA call graph lifted to the empty context.
+     */
+    @Override
+    public CallGraph<CSCallSite, CSMethod> getCSCallGraph() {
+        if (csCallGraph == null) {
+            CallGraph<Invoke, JMethod> callGraph = program.getCallGraph();
+            csCallGraph = new CSCallGraph(csManager);
+            callGraph.entryMethods().forEach(method -> csCallGraph.addEntryMethod(
+                    csManager.getCSMethod(emptyContext, method)));
+            callGraph.reachableMethods().forEach(method -> csCallGraph.addReachableMethod(
+                    csManager.getCSMethod(emptyContext, method)));
+            callGraph.edges().forEach(edge -> csCallGraph.addEdge(new Edge<>(
+                    edge.getKind(),
+                    csManager.getCSCallSite(emptyContext, edge.getCallSite()),
+                    csManager.getCSMethod(emptyContext, edge.getCallee()))));
+        }
+        return csCallGraph;
+    }
+
+    private CSObj lift(Obj obj) {
+        return csManager.getCSObj(emptyContext, obj);
+    }
+
+    /**
+     * @return the CS variable of given variable in the empty context,
+     * whose points-to set is that of the variable.
+     */
+    private CSVar lift(Var var) {
+        Set<Obj> objs = getPointsToSet(var);
+        CSVar csVar = csManager.getCSVar(emptyContext, var);
+        PointsToSet pts = csVar.getPointsToSet();
+        if (pts.size() < objs.size()) {
+            objs.forEach(obj -> pts.addObject(lift(obj)));
+        }
+        return csVar;
+    }
+
+    /**
+     * Computes points-to set of given variable.
+     *
+     * @return the points-to set, or null if the budget runs out or
+     * the variable is being queried (i.e., the sub-queries are cyclic).
+     */
+    private Set<Obj> query(Var var) {
+        Set<Obj> pts = cache.get(var);
+        if (pts == null) {
+            pts = queryCache.get(var);
+        }
+        if (pts != null) {
+            return pts;
+        }
+        if (!queries.isEmpty() && (steps <= 0 ||
+                queries.size() >= MAX_DEPTH || queriedVars.contains(var))) {
+            approximate();
+            return null;
+        }
+        Query query = new Query(var);
+        queries.push(query);
+        queriedVars.add(var);
+        pts = query.solve();
+        queriedVars.remove(var);
+        queries.pop();
+        if (query.approximated) {
+            queryCache.put(var, pts);
+        } else {
+            cache.put(var, pts);
+        }
+        return pts;
+    }
+
+    /**
+     * Marks the ongoing queries as approximated, as they depend on
+     * a check which conservatively succeeds.
+     */
+    private void approximate() {
+        queries.forEach(query -> query.approximated = true);
+    }
+
+    /**
+     * @return whether given variables may point to the same object.
+     */
+    private boolean mayAlias(Var v1, Var v2) {
+        Set<Obj> pts1 = query(v1);
+        if (pts1 == null) {
+            return true;
+        }
+        Set<Obj> pts2 = query(v2);
+        return pts2 == null || !Collections.disjoint(pts1, pts2);
+    }
+
+    /**
+     * @return whether given call site may call given callee.
+     */
+    private boolean mayCall(Invoke callSite, JMethod callee) {
+        if (callSite.isStatic() || callSite.isSpecial() ||
+                !(callSite.getInvokeExp() instanceof InvokeInstanceExp invokeExp)) {
+            return true;
+        }
+        Set<Obj> recvPts = query(invokeExp.getBase());
+        return recvPts == null || recvPts.stream().anyMatch(recv ->
+                callee.equals(CallGraphs.resolveCallee(recv.getType(), callSite)));
+    }
+
+    /**
+     * A (sub-)query, which traverses the variables whose values
+     * may flow to the queried variable.
+     */
+    private class Query {
+
+        private final Set<Var> visited = Sets.newSet();
+
+        private final Deque<Var> workList = new ArrayDeque<>();
+
+        private final Set<Obj> pts = Sets.newHybridSet();
+
+        /**
+         * Whether the result of this query is approximated.
+         */
+        private boolean approximated = false;
+
+        private Query(Var var) {
+            flow(var);
+        }
+
+        private Set<Obj> solve() {
+            while (!workList.isEmpty()) {
+                Var var = workList.pop();
+                --steps;
+                for (Stmt def : program.getDefsOf(var)) {
+                    processDef(def);
+                }
+                int paramIndex = program.getParamIndexOf(var);
+                if (paramIndex >= 0) {
+                    JMethod method = var.getMethod();
+                    for (Invoke callSite : program.getCallGraph().getCallersOf(method)) {
+                        if (mayCall(callSite, method)) {
+                            flow(callSite.getInvokeExp().getArg(paramIndex));
+                        }
+                    }
+                }
+                if (program.isThis(var)) {
+                    processThis(var);
+                }
+            }
+            return pts;
+        }
+
+        private void processDef(Stmt def) {
+            if (def instanceof New newStmt) {
+                pts.add(heapModel.getObj(newStmt));
+            } else if (def instanceof Copy copy) {
+                flow(copy.getRValue());
+            } else if (def instanceof Cast cast) {
+                CastExp exp = cast.getRValue();
+                if (exp.getCastType() instanceof ReferenceType) {
+                    flow(exp.getValue());
+                }
+            } else if (def instanceof LoadField load) {
+                JField field = load.getFieldRef().resolve();
+                Var base = load.isStatic() ? null :
+                        ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+                for (StoreField store : program.getStoresOf(field)) {
+                    if (base == null) {
+                        flow(store.getRValue());
+                    } else if (!store.isStatic() && mayAlias(base,
+                            ((InstanceFieldAccess) store.getFieldAccess()).getBase())) {
+                        flow(store.getRValue());
+                    }
+                }
+            } else if (def instanceof LoadArray load) {
+                Var base = load.getArrayAccess().getBase();
+                for (StoreArray store : program.getArrayStores()) {
+                    if (mayAlias(base, store.getArrayAccess().getBase())) {
+                        flow(store.getRValue());
+                    }
+                }
+            } else if (def instanceof Invoke callSite) {
+                for (JMethod callee : program.getCallGraph().getCalleesOf(callSite)) {
+                    if (mayCall(callSite, callee)) {
+                        callee.getIR().getReturnVars().forEach(this::flow);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Processes this variable, which receives the receiver objects
+         * that dispatch to its method.
+         */
+        private void processThis(Var thisVar) {
+            JMethod method = thisVar.getMethod();
+            for (Invoke callSite : program.getCallGraph().getCallersOf(method)) {
+                if (callSite.getInvokeExp() instanceof InvokeInstanceExp invokeExp) {
+                    Var recv = invokeExp.getBase();
+                    Set<Obj> recvPts = query(recv);
+                    if (recvPts == null) {
+                        flow(recv);
+                    } else if (callSite.isSpecial()) {
+                        pts.addAll(recvPts);
+                    } else {
+                        for (Obj obj : recvPts) {
+                            if (method.equals(CallGraphs.resolveCallee(
+                                    obj.getType(), callSite))) {
+                                pts.add(obj);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void flow(Var var) {
+            if (visited.add(var)) {
+                workList.push(var);
+            }
+        }
+    }
+}
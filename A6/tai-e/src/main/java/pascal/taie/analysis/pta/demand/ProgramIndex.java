@@ -0,0 +1,187 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.demand;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Indexes the pointer-related statements of the methods reachable in
+ * the CHA call graph, which are the constraints explored by
+ * {@link DemandPointsToEngine}.
+ */
+class ProgramIndex {
+
+    private final ClassHierarchy hierarchy;
+
+    private final DefaultCallGraph callGraph = new DefaultCallGraph();
+
+    /**
+     * Map from each variable to the statements that assign
+     * (possible) references to it.
+     */
+    private final MultiMap<Var, Stmt> defs = Maps.newMultiMap();
+
+    private final MultiMap<JField, StoreField> fieldStores = Maps.newMultiMap();
+
+    private final List<StoreArray> arrayStores = new ArrayList<>();
+
+    private final Map<Var, Integer> paramIndexes = Maps.newMap();
+
+    private final Set<Var> thisVars = Sets.newSet();
+
+    ProgramIndex() {
+        hierarchy = World.get().getClassHierarchy();
+        build(World.get().getMainMethod());
+    }
+
+    private void build(JMethod entry) {
+        callGraph.addEntryMethod(entry);
+        Queue<JMethod> workList = new ArrayDeque<>();
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (!callGraph.addReachableMethod(method)) {
+                continue;
+            }
+            index(method.getIR());
+            for (Invoke callSite : callGraph.getCallSitesIn(method)) {
+                for (JMethod callee : resolve(callSite)) {
+                    callGraph.addEdge(new Edge<>(
+                            CallGraphs.getCallKind(callSite), callSite, callee));
+                    workList.add(callee);
+                }
+            }
+        }
+    }
+
+    private void index(IR ir) {
+        List<Var> params = ir.getParams();
+        for (int i = 0; i < params.size(); ++i) {
+            paramIndexes.put(params.get(i), i);
+        }
+        if (ir.getThis() != null) {
+            thisVars.add(ir.getThis());
+        }
+        for (Stmt stmt : ir.getStmts()) {
+            if (stmt instanceof New || stmt instanceof Copy ||
+                    stmt instanceof Cast || stmt instanceof LoadField ||
+                    stmt instanceof LoadArray || stmt instanceof Invoke) {
+                stmt.getDef().ifPresent(def -> {
+                    if (def instanceof Var var) {
+                        defs.put(var, stmt);
+                    }
+                });
+            } else if (stmt instanceof StoreField store) {
+                fieldStores.put(store.getFieldRef().resolve(), store);
+            } else if (stmt instanceof StoreArray store) {
+                arrayStores.add(store);
+            }
+        }
+    }
+
+    /**
+     * Resolves callees of a call site via CHA.
+     */
+    private Set<JMethod> resolve(Invoke callSite) {
+        Set<JMethod> callees = Sets.newHybridSet();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC, SPECIAL -> {
+                JMethod callee = CallGraphs.resolveCallee(null, callSite);
+                if (callee != null) {
+                    callees.add(callee);
+                }
+            }
+            case VIRTUAL, INTERFACE -> {
+                JClass declaringClass = callSite.getMethodRef().getDeclaringClass();
+                for (JClass subclass : hierarchy.getAllSubclassesOf(declaringClass, true)) {
+                    if (!subclass.isAbstract()) {
+                        JMethod callee = hierarchy.dispatch(subclass, callSite.getMethodRef());
+                        if (callee != null) {
+                            callees.add(callee);
+                        }
+                    }
+                }
+            }
+        }
+        return callees;
+    }
+
+    CallGraph<Invoke, JMethod> getCallGraph() {
+        return callGraph;
+    }
+
+    Set<Stmt> getDefsOf(Var var) {
+        return defs.get(var);
+    }
+
+    Set<StoreField> getStoresOf(JField field) {
+        return fieldStores.get(field);
+    }
+
+    List<StoreArray> getArrayStores() {
+        return Collections.unmodifiableList(arrayStores);
+    }
+
+    /**
+     * @return the index of given variable in the parameters of
+     * its method, or -1 if it is not a parameter.
+     */
+    int getParamIndexOf(Var var) {
+        return paramIndexes.getOrDefault(var, -1);
+    }
+
+    boolean isThis(Var var) {
+        return thisVars.contains(var);
+    }
+}
@@ -28,6 +28,7 @@ import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
 
@@ -71,7 +72,17 @@ public class ResultProcessor {
 
     public static void process(AnalysisOptions options,
                                PointerAnalysisResult result) {
-        printStatistics(result);
+        process(options, result, Map.of());
+    }
+
+    /**
+     * @param demotedMethods map from the methods demoted due to exceeded
+     *                       budget to their context length limits.
+     */
+    public static void process(AnalysisOptions options,
+                               PointerAnalysisResult result,
+                               Map<JMethod, Integer> demotedMethods) {
+        printStatistics(result, demotedMethods);
         String action = options.getString("action");
         if (action == null) {
             return;
@@ -83,7 +94,8 @@ public class ResultProcessor {
         }
     }
 
-    private static void printStatistics(PointerAnalysisResult result) {
+    private static void printStatistics(PointerAnalysisResult result,
+                                        Map<JMethod, Integer> demotedMethods) {
         int varInsens = result.getVars().size();
         int varSens = result.getCSVars().size();
         int vptSizeInsens = sum(result.getVars(), v -> result.getPointsToSet(v).size());
@@ -111,6 +123,15 @@ public class ResultProcessor {
                 format(reachableInsens), format(reachableSens));
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#call graph edges:",
                 format(callEdgeInsens), format(callEdgeSens));
+        if (!demotedMethods.isEmpty()) {
+            System.out.printf("%-30s%s%n", "#demoted methods:",
+                    format(demotedMethods.size()));
+            demotedMethods.entrySet()
+                    .stream()
+                    .sorted(Comparator.comparing(e -> e.getKey().toString()))
+                    .forEach(e -> System.out.printf("  %s -> %s%n", e.getKey(),
+                            e.getValue() == 0 ? "ci" : e.getValue() + "-limited"));
+        }
         System.out.println("----------------------------------------");
     }
 
@@ -0,0 +1,200 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.Indexer;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Points-to set which stores object indexes in a sparse bit set.
+ * The bits are grouped into 64-bit words, and only the non-zero words
+ * are stored, together with their keys (index / 64) in ascending order.
+ * The union of two such sets is computed word by word in one merge pass.
+ */
+class BitSetPointsToSet extends IndexedPointsToSet {
+
+    private static final int[] EMPTY_KEYS = new int[0];
+
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    private int[] keys = EMPTY_KEYS;
+
+    private long[] words = EMPTY_WORDS;
+
+    /**
+     * Number of non-zero words.
+     */
+    private int length = 0;
+
+    /**
+     * Number of bits set.
+     */
+    private int size = 0;
+
+    BitSetPointsToSet(Indexer<CSObj> indexer) {
+        super(indexer);
+    }
+
+    @Override
+    boolean addIndex(int index) {
+        int key = index >>> 6;
+        long bit = 1L << index;
+        int pos = Arrays.binarySearch(keys, 0, length, key);
+        if (pos >= 0) {
+            if ((words[pos] & bit) != 0) {
+                return false;
+            }
+            words[pos] |= bit;
+        } else {
+            pos = -pos - 1;
+            if (length == keys.length) {
+                int capacity = Math.max(2, length + (length >> 1));
+                keys = Arrays.copyOf(keys, capacity);
+                words = Arrays.copyOf(words, capacity);
+            }
+            System.arraycopy(keys, pos, keys, pos + 1, length - pos);
+            System.arraycopy(words, pos, words, pos + 1, length - pos);
+            keys[pos] = key;
+            words[pos] = bit;
+            ++length;
+        }
+        ++size;
+        return true;
+    }
+
+    @Override
+    boolean containsIndex(int index) {
+        int pos = Arrays.binarySearch(keys, 0, length, index >>> 6);
+        return pos >= 0 && (words[pos] & (1L << index)) != 0;
+    }
+
+    @Override
+    PrimitiveIterator.OfInt indexIterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int pos = 0;
+
+            private long word = length > 0 ? words[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (++pos >= length) {
+                        return false;
+                    }
+                    word = words[pos];
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long lowest = word & -word;
+                word ^= lowest;
+                return (keys[pos] << 6) + Long.numberOfTrailingZeros(lowest);
+            }
+        };
+    }
+
+    @Override
+    IndexedPointsToSet newSet() {
+        return new BitSetPointsToSet(indexer);
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (!(pts instanceof BitSetPointsToSet other)) {
+            return super.addAllDiff(pts);
+        }
+        BitSetPointsToSet diff = new BitSetPointsToSet(indexer);
+        diff.keys = new int[other.length];
+        diff.words = new long[other.length];
+        // words which are absent in this set
+        int absent = 0;
+        for (int i = 0, j = 0; j < other.length; ++j) {
+            int key = other.keys[j];
+            while (i < length && keys[i] < key) {
+                ++i;
+            }
+            long newBits;
+            if (i < length && keys[i] == key) {
+                newBits = other.words[j] & ~words[i];
+                words[i] |= newBits;
+            } else {
+                newBits = other.words[j];
+                ++absent;
+            }
+            if (newBits != 0) {
+                diff.keys[diff.length] = key;
+                diff.words[diff.length] = newBits;
+                ++diff.length;
+                diff.size += Long.bitCount(newBits);
+            }
+        }
+        if (absent > 0) {
+            mergeAbsentWords(diff, absent);
+        }
+        size += diff.size;
+        return diff;
+    }
+
+    /**
+     * Merges the words of diff whose keys are absent in this set.
+     */
+    private void mergeAbsentWords(BitSetPointsToSet diff, int absent) {
+        int newLength = length + absent;
+        int[] newKeys = new int[newLength];
+        long[] newWords = new long[newLength];
+        int i = 0, j = 0, k = 0;
+        while (i < length || j < diff.length) {
+            if (j >= diff.length || (i < length && keys[i] < diff.keys[j])) {
+                newKeys[k] = keys[i];
+                newWords[k++] = words[i++];
+            } else if (i < length && keys[i] == diff.keys[j]) {
+                // the word has been merged in place
+                newKeys[k] = keys[i];
+                newWords[k++] = words[i++];
+                ++j;
+            } else {
+                newKeys[k] = diff.keys[j];
+                newWords[k++] = diff.words[j++];
+            }
+        }
+        keys = newKeys;
+        words = newWords;
+        length = newLength;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
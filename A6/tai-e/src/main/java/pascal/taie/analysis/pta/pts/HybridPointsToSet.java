@@ -0,0 +1,100 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.Indexer;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Points-to set which uses {@link SortedArrayPointsToSet} while it is
+ * small, and switches to {@link BitSetPointsToSet} when it grows.
+ */
+class HybridPointsToSet extends IndexedPointsToSet {
+
+    /**
+     * The set switches to bit set when its size exceeds this threshold.
+     */
+    private static final int THRESHOLD = 32;
+
+    private IndexedPointsToSet set;
+
+    private boolean isBitSet = false;
+
+    HybridPointsToSet(Indexer<CSObj> indexer) {
+        super(indexer);
+        set = new SortedArrayPointsToSet(indexer);
+    }
+
+    @Override
+    boolean addIndex(int index) {
+        if (set.addIndex(index)) {
+            checkSize();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    boolean containsIndex(int index) {
+        return set.containsIndex(index);
+    }
+
+    @Override
+    PrimitiveIterator.OfInt indexIterator() {
+        return set.indexIterator();
+    }
+
+    @Override
+    IndexedPointsToSet newSet() {
+        return new HybridPointsToSet(indexer);
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (pts instanceof HybridPointsToSet other) {
+            pts = other.set;
+        }
+        PointsToSet diff = set.addAllDiff(pts);
+        checkSize();
+        return diff;
+    }
+
+    private void checkSize() {
+        if (!isBitSet && set.size() > THRESHOLD) {
+            IndexedPointsToSet bitSet = new BitSetPointsToSet(indexer);
+            for (var iter = set.indexIterator(); iter.hasNext(); ) {
+                bitSet.addIndex(iter.nextInt());
+            }
+            set = bitSet;
+            isBitSet = true;
+        }
+    }
+
+    @Override
+    public int size() {
+        return set.size();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.Indexer;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set which stores the indexes of the objects
+ * given by {@link Indexer}, instead of the objects themselves.
+ */
+abstract class IndexedPointsToSet implements PointsToSet {
+
+    protected final Indexer<CSObj> indexer;
+
+    IndexedPointsToSet(Indexer<CSObj> indexer) {
+        this.indexer = indexer;
+    }
+
+    /**
+     * Adds an object index to this set.
+     *
+     * @return true if this points-to set changed as a result of the call,
+     * otherwise false.
+     */
+    abstract boolean addIndex(int index);
+
+    /**
+     * @return true if this set contains given object index, otherwise false.
+     */
+    abstract boolean containsIndex(int index);
+
+    /**
+     * @return iterator over the object indexes in this set in ascending order.
+     */
+    abstract PrimitiveIterator.OfInt indexIterator();
+
+    /**
+     * @return a new empty set of the same representation as this set.
+     */
+    abstract IndexedPointsToSet newSet();
+
+    /**
+     * @return iterator over the object indexes in given points-to set.
+     */
+    static PrimitiveIterator.OfInt indexIteratorOf(PointsToSet pts) {
+        if (pts instanceof IndexedPointsToSet indexed) {
+            return indexed.indexIterator();
+        } else {
+            return pts.objects().mapToInt(CSObj::getIndex).iterator();
+        }
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        return addIndex(obj.getIndex());
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        boolean changed = false;
+        for (var iter = indexIteratorOf(pts); iter.hasNext(); ) {
+            changed |= addIndex(iter.nextInt());
+        }
+        return changed;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        IndexedPointsToSet diff = newSet();
+        for (var iter = indexIteratorOf(pts); iter.hasNext(); ) {
+            int index = iter.nextInt();
+            if (addIndex(index)) {
+                diff.addIndex(index);
+            }
+        }
+        return diff;
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        return containsIndex(obj.getIndex());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj && containsIndex(obj.getIndex());
+            }
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                PrimitiveIterator.OfInt iter = indexIterator();
+                return new Iterator<>() {
+
+                    @Override
+                    public boolean hasNext() {
+                        return iter.hasNext();
+                    }
+
+                    @Override
+                    public CSObj next() {
+                        return indexer.getObject(iter.nextInt());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return IndexedPointsToSet.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getObjects().stream();
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+}
@@ -23,28 +23,65 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.Indexer;
 import pascal.taie.util.collection.Sets;
 
-import java.util.Set;
 import java.util.function.Supplier;
 
 /**
- * Provides static factory methods for {@link PointsToSet}.
+ * Makes {@link PointsToSet}s of a representation. Each
+ * {@link pascal.taie.analysis.pta.core.cs.element.CSManager} owns
+ * a factory for the objects it manages, thus the analyses running
+ * in the same process (e.g., a pre-analysis, the main analysis and
+ * a demand-driven analysis) choose their representations independently.
  */
 public class PointsToSetFactory {
 
-    private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
+    private final Supplier<PointsToSet> supplier;
 
-    public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+    /**
+     * @param kind    the representation of the points-to sets made by
+     *                this factory, which is one of "hash" (default),
+     *                "sorted-array", "bitset" and "hybrid"
+     * @param indexer the indexer of the objects, which is used by
+     *                the representations other than "hash"
+     */
+    public PointsToSetFactory(String kind, Indexer<CSObj> indexer) {
+        supplier = switch (kind) {
+            case "hash" -> PointsToSetFactory::makeHashSet;
+            case "sorted-array" -> () -> new SortedArrayPointsToSet(indexer);
+            case "bitset" -> () -> new BitSetPointsToSet(indexer);
+            case "hybrid" -> () -> new HybridPointsToSet(indexer);
+            default -> throw new ConfigException(
+                    "Unknown points-to set representation: " + kind);
+        };
+    }
+
+    public PointsToSet make() {
+        return supplier.get();
     }
 
     /**
      * Convenient method for making one-element points-to set.
      */
-    public static PointsToSet make(CSObj obj) {
+    public PointsToSet make(CSObj obj) {
         PointsToSet set = make();
         set.addObject(obj);
         return set;
     }
+
+    /**
+     * @return a hash-based points-to set, which needs no indexer.
+     */
+    static PointsToSet makeHashSet() {
+        return new DelegatePointsToSet(Sets.newHybridSet());
+    }
+
+    /**
+     * @return a points-to set which can be modified by multiple threads.
+     */
+    public static ConcurrentPointsToSet makeConcurrent() {
+        return new ConcurrentPointsToSet();
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.Indexer;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Points-to set which stores object indexes in a sorted int array.
+ * It is compact for small sets, and the union of two such sets
+ * is computed by one merge pass.
+ */
+class SortedArrayPointsToSet extends IndexedPointsToSet {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements = EMPTY;
+
+    private int size = 0;
+
+    SortedArrayPointsToSet(Indexer<CSObj> indexer) {
+        super(indexer);
+    }
+
+    private SortedArrayPointsToSet(Indexer<CSObj> indexer,
+                                   int[] elements, int size) {
+        super(indexer);
+        this.elements = elements;
+        this.size = size;
+    }
+
+    @Override
+    boolean addIndex(int index) {
+        int pos = Arrays.binarySearch(elements, 0, size, index);
+        if (pos >= 0) {
+            return false;
+        }
+        pos = -pos - 1;
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(elements, pos, elements, pos + 1, size - pos);
+        elements[pos] = index;
+        ++size;
+        return true;
+    }
+
+    @Override
+    boolean containsIndex(int index) {
+        return Arrays.binarySearch(elements, 0, size, index) >= 0;
+    }
+
+    @Override
+    PrimitiveIterator.OfInt indexIterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return elements[next++];
+            }
+        };
+    }
+
+    @Override
+    IndexedPointsToSet newSet() {
+        return new SortedArrayPointsToSet(indexer);
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (!(pts instanceof SortedArrayPointsToSet other)) {
+            return super.addAllDiff(pts);
+        }
+        // merge the two sorted arrays, and collect the difference
+        int[] diff = new int[other.size];
+        int diffSize = 0;
+        int[] merged = null;
+        int i = 0, j = 0, k = 0;
+        while (j < other.size) {
+            int e = other.elements[j];
+            while (i < size && elements[i] < e) {
+                if (merged != null) {
+                    merged[k] = elements[i];
+                }
+                ++i;
+                ++k;
+            }
+            if (i < size && elements[i] == e) {
+                if (merged != null) {
+                    merged[k] = e;
+                }
+                ++i;
+            } else {
+                if (merged == null) { // the first new element
+                    merged = new int[size + other.size - j];
+                    System.arraycopy(elements, 0, merged, 0, k);
+                }
+                merged[k] = e;
+                diff[diffSize++] = e;
+            }
+            ++j;
+            ++k;
+        }
+        if (merged == null) {
+            return newSet();
+        }
+        System.arraycopy(elements, i, merged, k, size - i);
+        elements = merged;
+        size = k + size - i;
+        return new SortedArrayPointsToSet(indexer, diff, diffSize);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -24,6 +24,7 @@ package pascal.taie.ir;
 
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.ResultHolder;
@@ -103,6 +104,18 @@ public interface IR extends Iterable<Stmt>, ResultHolder {
         return getStmts().iterator();
     }
 
+    /**
+     * @return the {@link Invoke} statements (i.e., call sites) in this IR.
+     * The list is computed on the first call and then cached in this IR,
+     * so that all clients share the same list.
+     */
+    default List<Invoke> getInvokes() {
+        return getResult(Invoke.class.getName(), () -> stmts()
+                .filter(s -> s instanceof Invoke)
+                .map(s -> (Invoke) s)
+                .toList());
+    }
+
     /**
      * @return the exception entries in this IR.
      * @see ExceptionEntry
@@ -22,13 +22,49 @@
 
 package pascal.taie.analysis.pta;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class CSPTATest {
 
     static final String DIR = "cspta";
 
+    /**
+     * Test cases, each of which is the main class followed by its options.
+     */
+    static final List<List<String>> CASES = List.of(
+            List.of("New"), List.of("Assign"), List.of("StoreLoad"),
+            List.of("Call"), List.of("InstanceField"),
+            List.of("OneCall", "cs:1-call"), List.of("OneObject", "cs:1-obj"),
+            List.of("OneType", "cs:1-type"), List.of("TwoCall", "cs:2-call"),
+            List.of("TwoObject", "cs:2-obj"), List.of("TwoType", "cs:2-type"),
+            List.of("StaticField"), List.of("Array"), List.of("TypeFilter"));
+
+    /**
+     * Runs all test cases with given additional options.
+     */
+    static void testAllCases(String... opts) {
+        for (List<String> testCase : CASES) {
+            List<String> caseOpts = new ArrayList<>(
+                    testCase.subList(1, testCase.size()));
+            Collections.addAll(caseOpts, opts);
+            Tests.testCSPTA(DIR, testCase.get(0), caseOpts.toArray(new String[0]));
+        }
+    }
+
     @Test
     public void testNew() {
         Tests.testCSPTA(DIR, "New");
@@ -93,4 +129,132 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    /**
+     * Runs the call- and type-sensitive test cases with each CS manager
+     * explicitly, as the sequential solver uses ArrayCSManager by default.
+     */
+    @Test
+    public void testArrayCSManager() {
+        Tests.testCSPTA(DIR, "OneCall", "cs:1-call", "cs-manager:array");
+        Tests.testCSPTA(DIR, "TwoType", "cs:2-type", "cs-manager:array");
+    }
+
+    @Test
+    public void testMapCSManager() {
+        Tests.testCSPTA(DIR, "OneCall", "cs:1-call", "cs-manager:map");
+        Tests.testCSPTA(DIR, "TwoType", "cs:2-type", "cs-manager:map");
+    }
+
+    @Test
+    public void testTypeFilter() {
+        Tests.testCSPTA(DIR, "TypeFilter");
+    }
+
+    /**
+     * Runs all test cases with the multi-threaded solver, which is
+     * expected to produce the same results as the default solver.
+     */
+    @Test
+    public void testParallel() {
+        testAllCases("parallel:true");
+    }
+
+    /**
+     * The options of the sequential solver are rejected in parallel mode
+     * instead of being ignored.
+     */
+    @Test
+    public void testParallelRejectsSequentialOptions() {
+        for (String opt : List.of("time-budget:600", "memory-budget:0.99",
+                "checkpoint-dir:output/checkpoint/Parallel", "resume:true",
+                "cs-manager:map")) {
+            try {
+                Main.main(new String[]{"-pp", "-cp", "src/test/resources/pta/" + DIR,
+                        "-m", "New", "-a", CSPTA.ID + "=implicit-entries:false;" +
+                        "only-app:true;parallel:true;" + opt});
+                Assert.fail(opt + " is expected to be rejected with parallel:true");
+            } catch (ConfigException e) {
+                Assert.assertTrue(e.getMessage().contains(opt.split(":")[0]));
+            }
+        }
+    }
+
+    @Test
+    public void testBitSetPointsToSet() {
+        Tests.testCSPTA(DIR, "InstanceField", "pts:bitset");
+    }
+
+    @Test
+    public void testHybridPointsToSet() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "pts:hybrid");
+    }
+
+    @Test
+    public void testScaler() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:scaler");
+    }
+
+    /**
+     * Runs CSPTA on TwoObject with given options.
+     *
+     * @return map from each variable (prefixed by its method)
+     * to the string representations of the objects it points to.
+     */
+    private static Map<String, Set<String>> runCSPTA(String opts) {
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/pta/" + DIR,
+                "-m", "TwoObject", "-a", CSPTA.ID + "=implicit-entries:false;" +
+                "only-app:true;" + opts});
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        return result.getVars()
+                .stream()
+                .collect(Collectors.toMap(
+                        v -> v.getMethod() + "/" + v.getName(),
+                        v -> result.getPointsToSet(v)
+                                .stream()
+                                .map(Object::toString)
+                                .collect(Collectors.toSet())));
+    }
+
+    /**
+     * With a tiny threshold, Scaler cannot afford the context-sensitive
+     * variants and demotes the methods to cheaper ones, thus the results
+     * are sound but less precise than the ones with the default threshold.
+     */
+    @Test
+    public void testScalerDemotion() {
+        Map<String, Set<String>> precise = runCSPTA("cs:scaler");
+        Map<String, Set<String>> demoted = runCSPTA("cs:scaler;scaler-tst:1");
+        Assert.assertEquals(precise.keySet(), demoted.keySet());
+        precise.forEach((var, pts) -> Assert.assertTrue(var + ": " + pts,
+                demoted.get(var).containsAll(pts)));
+        Assert.assertNotEquals(precise, demoted);
+    }
+
+    /**
+     * The budget is checked for every entry but never exceeded,
+     * thus the results are unchanged.
+     */
+    @Test
+    public void testBudget() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                "time-budget:600", "memory-budget:0.99",
+                "budget-check-interval:1");
+    }
+
+    /**
+     * The time budget is exhausted from the start, thus the methods
+     * analyzed in more than one context are demoted.
+     */
+    @Test
+    public void testExhaustedBudget() {
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/pta/" + DIR,
+                "-m", "TwoObject", "-a", CSPTA.ID + "=implicit-entries:false;" +
+                "only-app:true;cs:2-obj;time-budget:0;budget-check-interval:1"});
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Map<JMethod, Integer> demotedMethods =
+                result.getResult(CSPTA.DEMOTED_METHODS);
+        Assert.assertFalse(demotedMethods.isEmpty());
+        demotedMethods.values().forEach(limit -> Assert.assertTrue(limit < 2));
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ContextTrieTest {
+
+    @Test
+    public void testMake() {
+        ContextTrie trie = new ContextTrie(2);
+        Context ab = trie.make("a", "b");
+        Assert.assertSame(ab, trie.make("a", "b"));
+        Assert.assertNotSame(ab, trie.make("b", "a"));
+        Assert.assertSame(trie.getEmptyContext(), trie.make());
+        Assert.assertEquals(2, ab.getLength());
+        Assert.assertEquals("a", ab.getElementAt(0));
+        Assert.assertEquals("b", ab.getElementAt(1));
+        Assert.assertEquals("[a, b]", ab.toString());
+        Assert.assertSame(trie, ContextTrie.of(ab));
+        // the contexts of different tries are different
+        Assert.assertNotSame(ab, new ContextTrie(2).make("a", "b"));
+    }
+
+    @Test
+    public void testAppend() {
+        ContextTrie trie = new ContextTrie(2);
+        Context a = trie.append(trie.getEmptyContext(), "a");
+        Assert.assertSame(trie.make("a"), a);
+        Context ab = trie.append(a, "b");
+        Assert.assertSame(trie.make("a", "b"), ab);
+        // appending to a full context drops its oldest element
+        Context bc = trie.append(ab, "c");
+        Assert.assertSame(trie.make("b", "c"), bc);
+        // the cached result is returned by the repeated appends
+        Assert.assertSame(bc, trie.append(ab, "c"));
+        Assert.assertSame(bc, trie.append(trie.make("x", "b"), "c"));
+        Assert.assertSame(trie.make("b", "d"), trie.append(ab, "d"));
+        Assert.assertSame(trie.make("c", "a"), trie.append(bc, "a"));
+    }
+
+    @Test
+    public void testAppendZeroLimit() {
+        ContextTrie trie = new ContextTrie(0);
+        Context empty = trie.getEmptyContext();
+        Assert.assertSame(empty, trie.append(empty, "a"));
+        Assert.assertSame(empty, trie.append(trie.make("a"), "b"));
+    }
+
+    @Test
+    public void testTruncate() {
+        ContextTrie trie = new ContextTrie(3);
+        Context abc = trie.make("a", "b", "c");
+        Context bc = trie.truncate(abc, 2);
+        Assert.assertSame(trie.make("b", "c"), bc);
+        // the cached suffix is returned by the repeated truncations
+        Assert.assertSame(bc, trie.truncate(abc, 2));
+        Assert.assertSame(trie.make("c"), trie.truncate(abc, 1));
+        Assert.assertSame(trie.make("c"), trie.truncate(bc, 1));
+        Assert.assertSame(trie.getEmptyContext(), trie.truncate(abc, 0));
+        Assert.assertSame(abc, trie.truncate(abc, 3));
+        Assert.assertSame(abc, trie.truncate(abc, 5));
+    }
+
+    @Test
+    public void testTruncateContext() {
+        // a wrapper shortens the contexts made by the trie of another selector
+        ContextTrie trie = new ContextTrie(2);
+        Context ab = trie.make("a", "b");
+        Assert.assertSame(trie.make("b"), ContextTrie.truncateContext(ab, 1));
+        Assert.assertSame(trie.getEmptyContext(),
+                ContextTrie.truncateContext(ab, 0));
+    }
+}
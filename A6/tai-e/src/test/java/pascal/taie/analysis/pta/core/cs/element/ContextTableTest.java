@@ -0,0 +1,103 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.util.Indexable;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class ContextTableTest {
+
+    private record IndexedContext(int index) implements Context, Indexable {
+
+        @Override
+        public int getLength() {
+            return 0;
+        }
+
+        @Override
+        public Object getElementAt(int i) {
+            throw new IndexOutOfBoundsException(i);
+        }
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+    }
+
+    private static String valueOf(Context context) {
+        return "v" + ((Indexable) context).getIndex();
+    }
+
+    private static void testPutAndGet(List<Context> contexts) {
+        ContextTable<String> table = new ContextTable<>();
+        for (int i = 0; i < contexts.size(); ++i) {
+            table.put(contexts.get(i), valueOf(contexts.get(i)));
+            // all elements survive each resize
+            for (int j = 0; j < contexts.size(); ++j) {
+                Context context = contexts.get(j);
+                Assert.assertEquals(j <= i ? valueOf(context) : null,
+                        table.get(context));
+            }
+        }
+        Assert.assertEquals(
+                contexts.stream().map(ContextTableTest::valueOf).toList(),
+                table.values().stream().sorted(Comparator.comparingInt(
+                        v -> Integer.parseInt(v.substring(1)))).toList());
+    }
+
+    @Test
+    public void testResize() {
+        // starts from 2 slots, and grows many times
+        testPutAndGet(IntStream.range(0, 100)
+                .<Context>mapToObj(IndexedContext::new)
+                .toList());
+    }
+
+    @Test
+    public void testSparseIndexes() {
+        // indexes sharing their low bits, which probe the same slots
+        // unless the hash spreads the high bits
+        testPutAndGet(IntStream.range(0, 40)
+                .<Context>mapToObj(i -> new IndexedContext(i << 16))
+                .toList());
+    }
+
+    @Test
+    public void testIndexZero() {
+        // index 0 must not be taken as an empty slot
+        ContextTable<String> table = new ContextTable<>();
+        Context zero = new IndexedContext(0);
+        Assert.assertNull(table.get(zero));
+        table.put(zero, "zero");
+        Assert.assertEquals("zero", table.get(zero));
+        Assert.assertNull(table.get(new IndexedContext(1)));
+    }
+}
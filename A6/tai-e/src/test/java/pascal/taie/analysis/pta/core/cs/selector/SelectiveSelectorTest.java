@@ -0,0 +1,144 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Map;
+
+/**
+ * Tests the contexts selected by {@link SelectiveSelector} for
+ * the methods of TwoObject, which are given different variants.
+ */
+public class SelectiveSelectorTest {
+
+    private static JMethod method(String className, String methodName) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        return hierarchy.getClass(className).getDeclaredMethod(methodName);
+    }
+
+    private static Invoke invoke(JMethod container, String calleeName) {
+        return container.getIR().getStmts()
+                .stream()
+                .filter(s -> s instanceof Invoke invoke &&
+                        invoke.getMethodRef().getName().equals(calleeName))
+                .map(s -> (Invoke) s)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static New alloc(JMethod container) {
+        return container.getIR().getStmts()
+                .stream()
+                .filter(s -> s instanceof New)
+                .map(s -> (New) s)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testMixedVariants() {
+        // builds the world of TwoObject
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/pta/cspta",
+                "-m", "TwoObject", "-a", CSPTA.ID + "=implicit-entries:false;" +
+                "only-app:true;cs:ci"});
+        JMethod main = method("TwoObject", "main");
+        JMethod m = method("TwoObject", "m");
+        JMethod add = method("List", "add");
+        JMethod iterator = method("List", "iterator");
+        JMethod next = method("List$ListIterator", "next");
+        // next() is absent, thus falls back to ci
+        SelectiveSelector selector = new SelectiveSelector(Map.of(
+                m, "1-obj", add, "2-type", iterator, "2-obj"), "ci");
+        CSManager csManager = new MapBasedCSManager();
+        HeapModel heapModel = new AllocationSiteBasedModel(
+                new AnalysisOptions(Map.of(
+                        "merge-string-constants", false,
+                        "merge-string-objects", false,
+                        "merge-string-builders", false,
+                        "merge-exception-objects", false)));
+        Context empty = selector.getEmptyContext();
+        Obj list = heapModel.getObj(alloc(m));
+        Obj listIterator = heapModel.getObj(alloc(iterator));
+
+        // 2-type appends the type containing the allocation site
+        // of the receiver object to the heap context of the receiver
+        CSCallSite addSite = csManager.getCSCallSite(empty, invoke(m, "add"));
+        CSObj recv = csManager.getCSObj(empty, list);
+        Context type1 = selector.selectContext(addSite, recv, add);
+        Assert.assertEquals(1, type1.getLength());
+        Assert.assertEquals(list.getContainerType(), type1.getElementAt(0));
+        recv = csManager.getCSObj(type1, list);
+        Context type2 = selector.selectContext(addSite, recv, add);
+        Assert.assertEquals(2, type2.getLength());
+        Assert.assertSame(type1, selector.selectHeapContext(
+                csManager.getCSMethod(type2, add), list));
+
+        // 2-obj mixes the type element of the receiver's heap context
+        // with the receiver object
+        CSCallSite iteratorSite = csManager.getCSCallSite(empty, invoke(m, "iterator"));
+        Context objCtx = selector.selectContext(iteratorSite, recv, iterator);
+        Assert.assertEquals(2, objCtx.getLength());
+        Assert.assertEquals(list.getContainerType(), objCtx.getElementAt(0));
+        Assert.assertEquals(list, objCtx.getElementAt(1));
+        Context heapCtx = selector.selectHeapContext(
+                csManager.getCSMethod(objCtx, iterator), listIterator);
+        Assert.assertEquals(1, heapCtx.getLength());
+        Assert.assertEquals(list, heapCtx.getElementAt(0));
+
+        // the methods absent in csMap are analyzed context-insensitively
+        CSCallSite nextSite = csManager.getCSCallSite(objCtx, invoke(m, "next"));
+        CSObj iter = csManager.getCSObj(heapCtx, listIterator);
+        Assert.assertSame(empty, selector.selectContext(nextSite, iter, next));
+        Assert.assertSame(empty, selector.selectHeapContext(
+                csManager.getCSMethod(empty, next), listIterator));
+
+        // static calls truncate the context of the call site
+        // to the limit of the callee
+        CSCallSite mSite = csManager.getCSCallSite(objCtx, invoke(main, "m"));
+        Context mCtx = selector.selectContext(mSite, m);
+        Assert.assertEquals(1, mCtx.getLength());
+        Assert.assertEquals(list, mCtx.getElementAt(0));
+        Assert.assertSame(objCtx, selector.selectContext(mSite, add));
+        Assert.assertSame(empty, selector.selectContext(mSite, next));
+        Assert.assertSame(mCtx, selector.selectContext(mSite, null, m));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.selector._1ObjSelector;
+import pascal.taie.analysis.pta.core.cs.selector._2ObjSelector;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class CheckpointTest {
+
+    private static final String CRASH = "crash";
+
+    private static AnalysisOptions makeOptions(Path dir, String cs, boolean resume) {
+        return new AnalysisOptions(Map.of("cs", cs,
+                "merge-string-constants", false,
+                "merge-string-objects", false,
+                "merge-string-builders", false,
+                "merge-exception-objects", false,
+                "checkpoint-dir", dir.toString(),
+                "checkpoint-interval", 0,
+                "resume", resume));
+    }
+
+    /**
+     * Heap model which crashes the analysis when it allocates
+     * the iterator, i.e., after the first checkpoint is saved.
+     */
+    private static HeapModel makeCrashingModel(AnalysisOptions options) {
+        HeapModel heapModel = new AllocationSiteBasedModel(options);
+        return new HeapModel() {
+            @Override
+            public Obj getObj(New allocSite) {
+                if (allocSite.getRValue().getType().getName().contains("ListIterator")) {
+                    throw new RuntimeException(CRASH);
+                }
+                return heapModel.getObj(allocSite);
+            }
+
+            @Override
+            public Obj getConstantObj(ReferenceLiteral value) {
+                return heapModel.getConstantObj(value);
+            }
+        };
+    }
+
+    private static Map<String, String> toStrings(PointerAnalysisResult result) {
+        Map<String, String> ptsMap = new TreeMap<>();
+        result.getCSVars().forEach(v ->
+                ptsMap.put(v.toString(), result.getPointsToSet(v).stream()
+                        .map(Object::toString).sorted().toList().toString()));
+        return ptsMap;
+    }
+
+    @Test
+    public void testSaveAndResume() throws IOException {
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/pta/cspta",
+                "-m", "TwoObject", "-a", CSPTA.ID + "=implicit-entries:false;" +
+                "only-app:true;cs:2-obj"});
+        PointerAnalysisResult expected = World.get().getResult(CSPTA.ID);
+        Path dir = Files.createTempDirectory("checkpoint");
+        Path file = dir.resolve("cspta.checkpoint");
+        // the crashed analysis leaves its checkpoint
+        AnalysisOptions options = makeOptions(dir, "2-obj", false);
+        Solver crashed = new Solver(options, makeCrashingModel(options),
+                new _2ObjSelector());
+        try {
+            crashed.solve();
+            Assert.fail("The analysis is expected to crash");
+        } catch (RuntimeException e) {
+            Assert.assertEquals(CRASH, e.getMessage());
+        }
+        Assert.assertTrue(Files.exists(file));
+        // the checkpoint of another configuration is rejected
+        options = makeOptions(dir, "1-obj", true);
+        Solver mismatched = new Solver(options,
+                new AllocationSiteBasedModel(options), new _1ObjSelector());
+        try {
+            mismatched.solve();
+            Assert.fail("The checkpoint of 2-obj is expected to be rejected");
+        } catch (AnalysisException e) {
+            Assert.assertTrue(e.getMessage().contains("does not match"));
+        }
+        Assert.assertTrue(Files.exists(file));
+        // the resumed analysis reaches the same fixpoint,
+        // and deletes the checkpoint
+        options = makeOptions(dir, "2-obj", true);
+        Solver resumed = new Solver(options,
+                new AllocationSiteBasedModel(options), new _2ObjSelector());
+        resumed.solve();
+        Assert.assertEquals(toStrings(expected), toStrings(resumed.getResult()));
+        Assert.assertFalse(Files.exists(file));
+    }
+}
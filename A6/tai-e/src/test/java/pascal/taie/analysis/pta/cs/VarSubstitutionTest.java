@@ -0,0 +1,79 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+
+public class VarSubstitutionTest {
+
+    private static Var getVar(IR ir, String name) {
+        return ir.getVars()
+                .stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static CSVar getCSVar(PointerAnalysisResult result, Var var) {
+        return result.getCSVars()
+                .stream()
+                .filter(v -> v.getVar().equals(var))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testEquivalentVars() {
+        Tests.testCSPTA("cspta", "StoreLoad");
+        JMethod main = World.get().getMainMethod();
+        IR ir = main.getIR();
+        Var a1 = getVar(ir, "a1"), a2 = getVar(ir, "a2");
+        Var temp0 = getVar(ir, "temp$0");
+        Var b1 = getVar(ir, "b1"), b2 = getVar(ir, "b2");
+        VarSubstitution substitution = new VarSubstitution();
+        // a2 = a1 = temp$0 = new A()
+        Assert.assertEquals(Set.of(a1, temp0), substitution.getEquivalentVars(a2));
+        // b2 = a2.f is not equivalent to b1, whose value is stored to a1.f
+        Assert.assertFalse(substitution.getEquivalentVars(b1).contains(b2));
+        Assert.assertTrue(substitution.getEquivalentVars(b2).isEmpty());
+        // the equivalent CSVars share one points-to set
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Assert.assertSame(getCSVar(result, a1).getPointsToSet(),
+                getCSVar(result, a2).getPointsToSet());
+        Assert.assertSame(getCSVar(result, a1).getPointsToSet(),
+                getCSVar(result, temp0).getPointsToSet());
+        Assert.assertNotSame(getCSVar(result, b1).getPointsToSet(),
+                getCSVar(result, b2).getPointsToSet());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.demand;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.Var;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the demand-driven results with the results of
+ * context-insensitive CSPTA (cs:ci) on the CSPTA test programs.
+ */
+public class DemandPointsToEngineTest {
+
+    private static final String CLASS_PATH = "src/test/resources/pta/cspta";
+
+    private static final List<String> CASES = List.of(
+            "New", "Assign", "StoreLoad", "Call", "InstanceField",
+            "OneCall", "OneObject", "OneType", "TwoCall", "TwoObject",
+            "TwoType", "StaticField", "Array", "TypeFilter");
+
+    /**
+     * The test cases on which the demand-driven results are expected
+     * to be as precise as cs:ci. On the other cases, they may be
+     * less precise due to the unfiltered casts and the CHA call graph.
+     */
+    private static final List<String> PRECISE_CASES = List.of(
+            "Assign", "StoreLoad", "Call", "InstanceField");
+
+    /**
+     * Runs cs:ci on given program, which also builds the world for
+     * the demand-driven engine.
+     */
+    private static PointerAnalysisResult runCSPTA(String main) {
+        return runCSPTA(main, "pts:hash");
+    }
+
+    private static PointerAnalysisResult runCSPTA(String main, String pts) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", CSPTA.ID + "=implicit-entries:false;only-app:true;cs:ci;" + pts});
+        return World.get().getResult(CSPTA.ID);
+    }
+
+    private static DemandPointsToEngine makeEngine(int budget) {
+        AnalysisOptions options = new AnalysisOptions(Map.of(
+                "merge-string-constants", false,
+                "merge-string-objects", false,
+                "merge-string-builders", false,
+                "merge-exception-objects", false));
+        return new DemandPointsToEngine(
+                new AllocationSiteBasedModel(options), budget);
+    }
+
+    /**
+     * The objects are compared by their string representations,
+     * as they are made by different heap models.
+     */
+    private static Set<String> toStrings(Set<Obj> pts) {
+        return pts.stream().map(Obj::toString).collect(Collectors.toSet());
+    }
+
+    private static void assertContains(Var var, Set<String> pts, Set<String> subset) {
+        Assert.assertTrue(var + ": " + pts + " does not contain " + subset,
+                pts.containsAll(subset));
+    }
+
+    @Test
+    public void testCompareWithCI() {
+        for (String main : CASES) {
+            PointerAnalysisResult ci = runCSPTA(main);
+            DemandPointsToEngine engine = makeEngine(Integer.MAX_VALUE);
+            for (Var var : ci.getVars()) {
+                Set<String> ciPts = toStrings(ci.getPointsToSet(var));
+                Set<String> demandPts = toStrings(engine.getPointsToSet(var));
+                if (PRECISE_CASES.contains(main)) {
+                    Assert.assertEquals(var.toString(), ciPts, demandPts);
+                } else {
+                    assertContains(var, demandPts, ciPts);
+                }
+            }
+        }
+    }
+
+    /**
+     * With an exhausted budget, the checks conservatively succeed,
+     * and the results are still sound.
+     */
+    @Test
+    public void testExhaustedBudget() {
+        for (String main : CASES) {
+            PointerAnalysisResult ci = runCSPTA(main);
+            DemandPointsToEngine precise = makeEngine(Integer.MAX_VALUE);
+            for (int budget : new int[]{0, 1}) {
+                DemandPointsToEngine engine = makeEngine(budget);
+                for (Var var : ci.getVars()) {
+                    Set<String> demandPts = toStrings(engine.getPointsToSet(var));
+                    assertContains(var, demandPts, toStrings(ci.getPointsToSet(var)));
+                    assertContains(var, demandPts,
+                            toStrings(precise.getPointsToSet(var)));
+                }
+            }
+        }
+    }
+
+    /**
+     * The context-sensitive queries are answered in the empty context.
+     */
+    @Test
+    public void testLiftedResults() {
+        PointerAnalysisResult ci = runCSPTA("InstanceField");
+        DemandPointsToEngine engine = makeEngine(Integer.MAX_VALUE);
+        ci.getVars().forEach(engine::getPointsToSet);
+        Assert.assertEquals(ci.getVars().size(), engine.getCSVars().size());
+        for (CSVar csVar : engine.getCSVars()) {
+            Assert.assertEquals(0, csVar.getContext().getLength());
+            Set<Obj> pts = engine.getPointsToSet(csVar.getVar());
+            Assert.assertEquals(pts.size(), csVar.getPointsToSet().size());
+            Assert.assertEquals(pts.size(), engine.getPointsToSet(csVar).size());
+            engine.getPointsToSet(csVar).forEach(csObj -> {
+                Assert.assertEquals(0, csObj.getContext().getLength());
+                Assert.assertTrue(pts.contains(csObj.getObject()));
+            });
+        }
+        Assert.assertEquals(engine.getObjects().size(),
+                engine.getCSObjects().size());
+        Assert.assertEquals(engine.getCallGraph().getNumberOfMethods(),
+                engine.getCSCallGraph().getNumberOfMethods());
+        Assert.assertEquals(engine.getCallGraph().edges().count(),
+                engine.getCSCallGraph().edges().count());
+        Assert.assertTrue(engine.getStaticFields().isEmpty());
+        Assert.assertTrue(engine.getInstanceFields().isEmpty());
+        Assert.assertTrue(engine.getArrayIndexes().isEmpty());
+    }
+
+    /**
+     * Lifting the results after CSPTA with an indexed representation
+     * neither changes the CSPTA results nor mixes their object indexes
+     * with the ones of the lifted objects.
+     */
+    @Test
+    public void testLiftAfterIndexedCSPTA() {
+        PointerAnalysisResult ci = runCSPTA("InstanceField", "pts:bitset");
+        Map<CSVar, Integer> sizes = ci.getCSVars()
+                .stream()
+                .collect(Collectors.toMap(v -> v, v -> v.getPointsToSet().size()));
+        DemandPointsToEngine engine = makeEngine(Integer.MAX_VALUE);
+        ci.getVars().forEach(engine::getPointsToSet);
+        for (CSVar csVar : engine.getCSVars()) {
+            Set<String> lifted = csVar.getPointsToSet()
+                    .objects()
+                    .map(csObj -> csObj.getObject().toString())
+                    .collect(Collectors.toSet());
+            Assert.assertEquals(csVar.toString(),
+                    toStrings(ci.getPointsToSet(csVar.getVar())), lifted);
+        }
+        sizes.forEach((csVar, size) -> Assert.assertEquals(csVar.toString(),
+                (int) size, csVar.getPointsToSet().size()));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Tests the merge passes of {@link IndexedPointsToSet#addAllDiff}.
+ * The sets are built from object indexes, thus no indexer is needed.
+ */
+public class IndexedPointsToSetTest {
+
+    private static final Supplier<IndexedPointsToSet> SORTED_ARRAY =
+            () -> new SortedArrayPointsToSet(null);
+
+    private static final Supplier<IndexedPointsToSet> BIT_SET =
+            () -> new BitSetPointsToSet(null);
+
+    private static final Supplier<IndexedPointsToSet> HYBRID =
+            () -> new HybridPointsToSet(null);
+
+    private static IndexedPointsToSet make(
+            Supplier<IndexedPointsToSet> factory, int... indexes) {
+        IndexedPointsToSet set = factory.get();
+        for (int index : indexes) {
+            set.addIndex(index);
+        }
+        return set;
+    }
+
+    private static List<Integer> indexes(PointsToSet pts) {
+        List<Integer> result = new ArrayList<>();
+        ((IndexedPointsToSet) pts).indexIterator().forEachRemaining(
+                (int i) -> result.add(i));
+        return result;
+    }
+
+    private static void assertIndexes(PointsToSet pts, int... expected) {
+        Assert.assertEquals(IntStream.of(expected).boxed().toList(), indexes(pts));
+        Assert.assertEquals(expected.length, pts.size());
+    }
+
+    @Test
+    public void testSortedArray() {
+        IndexedPointsToSet set = make(SORTED_ARRAY, 2, 5, 9);
+        // new elements before, between and after the existing ones
+        PointsToSet diff = set.addAllDiff(make(SORTED_ARRAY, 1, 5, 7, 12, 13));
+        assertIndexes(diff, 1, 7, 12, 13);
+        assertIndexes(set, 1, 2, 5, 7, 9, 12, 13);
+        // no new elements, the set is unchanged
+        diff = set.addAllDiff(make(SORTED_ARRAY, 2, 9, 13));
+        assertIndexes(diff);
+        assertIndexes(set, 1, 2, 5, 7, 9, 12, 13);
+        // the merged array is still extensible
+        Assert.assertTrue(set.addIndex(6));
+        Assert.assertFalse(set.addIndex(7));
+        assertIndexes(set, 1, 2, 5, 6, 7, 9, 12, 13);
+    }
+
+    @Test
+    public void testSortedArrayIntoEmpty() {
+        IndexedPointsToSet set = make(SORTED_ARRAY);
+        PointsToSet diff = set.addAllDiff(make(SORTED_ARRAY, 3, 4));
+        assertIndexes(diff, 3, 4);
+        assertIndexes(set, 3, 4);
+        assertIndexes(set.addAllDiff(make(SORTED_ARRAY)));
+    }
+
+    @Test
+    public void testBitSetInPlaceWords() {
+        // all words of the other set are present in this set
+        IndexedPointsToSet set = make(BIT_SET, 1, 70);
+        PointsToSet diff = set.addAllDiff(make(BIT_SET, 2, 70, 71));
+        assertIndexes(diff, 2, 71);
+        assertIndexes(set, 1, 2, 70, 71);
+        diff = set.addAllDiff(make(BIT_SET, 1, 71));
+        assertIndexes(diff);
+        assertIndexes(set, 1, 2, 70, 71);
+    }
+
+    @Test
+    public void testBitSetAbsentWords() {
+        // the words 0, 3 and 4 are absent in this set,
+        // and word 1 is present but brings no new bits
+        IndexedPointsToSet set = make(BIT_SET, 64, 100);
+        PointsToSet diff = set.addAllDiff(make(BIT_SET, 1, 64, 200, 300));
+        assertIndexes(diff, 1, 200, 300);
+        assertIndexes(set, 1, 64, 100, 200, 300);
+        Assert.assertTrue(set.containsIndex(200));
+        Assert.assertFalse(set.containsIndex(201));
+        // absent and in-place words in the same merge
+        diff = set.addAllDiff(make(BIT_SET, 0, 65, 130, 301));
+        assertIndexes(diff, 0, 65, 130, 301);
+        assertIndexes(set, 0, 1, 64, 65, 100, 130, 200, 300, 301);
+        // the merged arrays are still extensible
+        Assert.assertTrue(set.addIndex(500));
+        Assert.assertTrue(set.addIndex(150));
+        assertIndexes(set, 0, 1, 64, 65, 100, 130, 150, 200, 300, 301, 500);
+    }
+
+    @Test
+    public void testBitSetIntoEmpty() {
+        IndexedPointsToSet set = make(BIT_SET);
+        PointsToSet diff = set.addAllDiff(make(BIT_SET, 5, 640));
+        assertIndexes(diff, 5, 640);
+        assertIndexes(set, 5, 640);
+    }
+
+    @Test
+    public void testMixedRepresentations() {
+        IndexedPointsToSet set = make(SORTED_ARRAY, 1, 3);
+        assertIndexes(set.addAllDiff(make(BIT_SET, 3, 4, 100)), 4, 100);
+        assertIndexes(set, 1, 3, 4, 100);
+        set = make(BIT_SET, 1, 3);
+        assertIndexes(set.addAllDiff(make(SORTED_ARRAY, 0, 3, 100)), 0, 100);
+        assertIndexes(set, 0, 1, 3, 100);
+    }
+
+    @Test
+    public void testHybridSwitch() {
+        // 30 elements, below the threshold of the sorted array
+        int[] evens = IntStream.range(0, 30).map(i -> i * 2).toArray();
+        IndexedPointsToSet set = make(HYBRID, evens);
+        PointsToSet diff = set.addAllDiff(make(HYBRID, 0, 1, 3));
+        assertIndexes(diff, 1, 3);
+        Assert.assertEquals(32, set.size());
+        // crosses the threshold, and switches to the bit set
+        int[] odds = IntStream.range(0, 10).map(i -> i * 2 + 5).toArray();
+        diff = set.addAllDiff(make(HYBRID, odds));
+        assertIndexes(diff, odds);
+        Assert.assertEquals(42, set.size());
+        for (int i : evens) {
+            Assert.assertTrue(set.containsIndex(i));
+        }
+        for (int i : odds) {
+            Assert.assertTrue(set.containsIndex(i));
+        }
+        // merges a small (sorted array) set into the switched set
+        diff = set.addAllDiff(make(HYBRID, 1, 2, 1000));
+        assertIndexes(diff, 1000);
+        // merges a large (bit set) set into the switched set
+        IndexedPointsToSet large = make(HYBRID,
+                IntStream.range(0, 40).map(i -> i + 990).toArray());
+        diff = set.addAllDiff(large);
+        Assert.assertEquals(39, diff.size());
+        Assert.assertFalse(indexes(diff).contains(1000));
+        Assert.assertEquals(42 + 1 + 39, set.size());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayCSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.selector.CISelector;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.config.ConfigException;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class PointsToSetFactoryTest {
+
+    private static final List<String> KINDS =
+            List.of("hash", "sorted-array", "bitset", "hybrid");
+
+    private static List<CSObj> makeObjects(CSManager csManager, int n) {
+        Context context = new CISelector().getEmptyContext();
+        return IntStream.range(0, n)
+                .mapToObj(i -> csManager.getCSObj(context,
+                        new MockObj("Test", i, null)))
+                .toList();
+    }
+
+    /**
+     * The factories of two managers are independent, thus creating
+     * a manager with another representation, e.g., for a pre-analysis
+     * or a demand-driven analysis, does not change the sets made for
+     * an existing manager.
+     */
+    @Test
+    public void testIndependentFactories() {
+        CSManager bitSetManager = new ArrayCSManager("bitset");
+        List<CSObj> objs = makeObjects(bitSetManager, 3);
+        CSManager hashManager = new MapBasedCSManager();
+        makeObjects(hashManager, 1);
+        PointsToSet bitSet = bitSetManager.getPointsToSetFactory().make(objs.get(2));
+        Assert.assertTrue(bitSet instanceof BitSetPointsToSet);
+        Assert.assertTrue(bitSet.contains(objs.get(2)));
+        Assert.assertFalse(bitSet.contains(objs.get(0)));
+        Assert.assertFalse(hashManager.getPointsToSetFactory().make()
+                instanceof IndexedPointsToSet);
+    }
+
+    @Test
+    public void testUnknownRepresentation() {
+        try {
+            new ArrayCSManager("tree");
+            Assert.fail("Unknown representation is expected to be rejected");
+        } catch (ConfigException e) {
+            Assert.assertTrue(e.getMessage().contains("tree"));
+        }
+    }
+
+    /**
+     * Runs the same propagation workload on each representation, i.e.,
+     * merges (by {@link PointsToSet#addAllDiff}) random points-to sets
+     * into each other until they become large, and checks that all
+     * representations compute the same sets. The time taken by each
+     * representation is printed for a rough comparison.
+     */
+    @Test
+    public void testScaledWorkload() {
+        long expected = -1;
+        for (String kind : KINDS) {
+            long start = System.nanoTime();
+            long checksum = runWorkload(kind);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-12s %8.2f ms%n", kind, elapsed / 1e6);
+            if (expected == -1) {
+                expected = checksum;
+            }
+            Assert.assertEquals(kind, expected, checksum);
+        }
+    }
+
+    private static long runWorkload(String kind) {
+        final int nObjs = 5000, nSets = 2000, nMerges = 10_000;
+        CSManager csManager = new ArrayCSManager(kind);
+        PointsToSetFactory factory = csManager.getPointsToSetFactory();
+        List<CSObj> objs = makeObjects(csManager, nObjs);
+        Random random = new Random(42);
+        PointsToSet[] sets = new PointsToSet[nSets];
+        for (int i = 0; i < nSets; ++i) {
+            sets[i] = factory.make();
+            // most sets are small, and a few are large
+            int size = i % 100 == 0 ? 500 : 1 + random.nextInt(8);
+            for (int j = 0; j < size; ++j) {
+                sets[i].addObject(objs.get(random.nextInt(nObjs)));
+            }
+        }
+        long checksum = 0;
+        for (int i = 0; i < nMerges; ++i) {
+            PointsToSet target = sets[random.nextInt(nSets)];
+            PointsToSet diff = target.addAllDiff(sets[random.nextInt(nSets)]);
+            for (CSObj obj : diff) {
+                checksum += obj.getIndex();
+            }
+            if (target.contains(objs.get(random.nextInt(nObjs)))) {
+                ++checksum;
+            }
+        }
+        for (PointsToSet set : sets) {
+            checksum = checksum * 31 + set.size();
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,31 @@
+class TypeFilter {
+
+    public static void main(String[] args) {
+        Object o = new Dog();
+        o = new Cat();
+        o = new Animal();
+        Object x = o;
+        Object y = x;
+        x = y;
+        Animal a = (Dog) x;
+        a = (Cat) y;
+        Dog d = (Dog) o;
+        Cat c = (Cat) o;
+        Animal p = pick(d, c);
+    }
+
+    static Animal pick(Dog d, Cat c) {
+        Animal a = d;
+        a = c;
+        return a;
+    }
+}
+
+class Animal {
+}
+
+class Dog extends Animal {
+}
+
+class Cat extends Animal {
+}
@@ -57,18 +57,28 @@ public class ConstantPropagation extends
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - finish me
-        return null;
+        CPFact cpFact = new CPFact();
+        for (Var param : cfg.getIR().getParams() ){
+            if (canHoldInt(param)){
+                cpFact.update(param, Value.getNAC());
+                // Actually, absence means "UNDEF", i.e. TOP.
+            }
+        }
+        return cpFact;
     }
 
     @Override
     public CPFact newInitialFact() {
         // TODO - finish me
-        return null;
+        return new CPFact();
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
         // TODO - finish me
+        fact.forEach((Var var, Value value) -> {
+            target.update(var, meetValue(target.get(var), value));
+        });
     }
 
     /**
@@ -76,13 +86,36 @@ public class ConstantPropagation extends
      */
     public Value meetValue(Value v1, Value v2) {
         // TODO - finish me
-        return null;
+        if (v1.isNAC() || v2.isNAC()){
+            return Value.getNAC();
+        }
+        if (v1.isUndef())   return v2;
+        if (v2.isUndef())   return v1;
+        if (v1.getConstant() == v2.getConstant()){
+            return v1;
+        } else {
+            return Value.getNAC();
+        }
     }
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - finish me
-        return false;
+        var gen = stmt.getDef();
+        CPFact old_out = out.copy();
+        out.copyFrom(in);
+        if (gen.isPresent() && gen.get() instanceof Var def) {
+            if (!(stmt instanceof DefinitionStmt<?,?> definitionStmt) || !canHoldInt(def)){
+                return !out.equals(old_out);
+            }
+            var rValue = definitionStmt.getRValue();
+            if (rValue != null) {
+                out.update(def, evaluate(rValue, in));
+            } else {
+                out.update(def, Value.getNAC());
+            }
+        }
+        return !out.equals(old_out);
     }
 
     /**
@@ -112,6 +145,112 @@ public class ConstantPropagation extends
      */
     public static Value evaluate(Exp exp, CPFact in) {
         // TODO - finish me
-        return null;
+        if (exp instanceof Var){
+            if (canHoldInt((Var) exp)) {
+                return in.get((Var) exp);
+            } else {
+                return Value.getNAC();
+            }
+        } else if (exp instanceof IntLiteral){
+            return Value.makeConstant(((IntLiteral)exp).getValue());
+        } else if (exp instanceof BinaryExp){
+            Value op1 = evaluate(((BinaryExp) exp).getOperand1(), in);
+            Value op2 = evaluate(((BinaryExp) exp).getOperand2(), in);
+            // By issue: https://github.com/pascal-lab/Tai-e-assignments/issues/2
+            // judge '/0' and '%0' at first.
+            BinaryExp.Op op = ((BinaryExp) exp).getOperator();
+            if ( op2.isConstant() && op2.getConstant() == 0 && (op == ArithmeticExp.Op.DIV || op == ArithmeticExp.Op.REM) ){
+                return Value.getUndef();
+            }
+            if ( op1.isNAC() || op2.isNAC()){
+                return Value.getNAC();
+            }
+            if ( !op1.isConstant() || !op2.isConstant()){
+                return Value.getUndef();
+            }
+            if (op instanceof ArithmeticExp.Op) {
+                switch ((ArithmeticExp.Op)op) {
+                    case ADD -> {
+                        return Value.makeConstant(op1.getConstant() + op2.getConstant());
+                    }
+                    case SUB -> {
+                        return Value.makeConstant(op1.getConstant() - op2.getConstant());
+                    }
+                    case MUL -> {
+                        return Value.makeConstant(op1.getConstant() * op2.getConstant());
+                    }
+                    case DIV -> {
+                        if (op2.getConstant() == 0) {
+                            return Value.getUndef();
+                        }
+                        return Value.makeConstant(op1.getConstant() / op2.getConstant());
+                    }
+                    case REM -> {
+                        if (op2.getConstant() == 0) {
+                            return Value.getUndef();
+                        }
+                        return Value.makeConstant(op1.getConstant() % op2.getConstant());
+                    }
+                }
+            }
+            if (op instanceof ConditionExp.Op){
+                switch ((ConditionExp.Op)op){
+                    case EQ -> {
+                        return Value.makeConstant(op1.getConstant() == op2.getConstant()? 1 : 0);
+                    }
+                    case GE -> {
+                        return Value.makeConstant(op1.getConstant() >= op2.getConstant()? 1 : 0);
+                    }
+                    case GT -> {
+                        return Value.makeConstant(op1.getConstant() > op2.getConstant()? 1 : 0);
+                    }
+                    case LE -> {
+                        return Value.makeConstant(op1.getConstant() <= op2.getConstant()? 1 : 0);
+                    }
+                    case LT -> {
+                        return Value.makeConstant(op1.getConstant() < op2.getConstant()? 1 : 0);
+                    }
+                    case NE -> {
+                        return Value.makeConstant(op1.getConstant() != op2.getConstant()? 1 : 0);
+                    }
+                }
+            }
+            if (op instanceof ShiftExp.Op){
+                switch ((ShiftExp.Op)op){
+                    case SHL -> {
+                        return Value.makeConstant(op1.getConstant() << op2.getConstant());
+                    }
+                    case SHR -> {
+                        return Value.makeConstant(op1.getConstant() >> op2.getConstant());
+                    }
+                    case USHR -> {
+                        return Value.makeConstant(op1.getConstant() >>> op2.getConstant());
+                    }
+                }
+            }
+            if (op instanceof BitwiseExp.Op) {
+                // maybe no need to process it? NO!!! logic rather than bitwise.
+                switch ((BitwiseExp.Op)op){
+                    case OR -> {
+                        return Value.makeConstant(op1.getConstant() | op2.getConstant());
+                    }
+                    case AND -> {
+                        return Value.makeConstant(op1.getConstant() & op2.getConstant());
+                    }
+                    case XOR -> {
+                        return Value.makeConstant(op1.getConstant() ^ op2.getConstant());
+                    }
+                }
+            }
+            return Value.getUndef();
+        }
+        /*
+        f(y,z) =
+            val(y) op val(z) // if val(y) and val(z) are constants
+            NAC // if val(y) or val(z) is NAC
+            UNDEF // otherwise
+         对于其它情况，该方法会像我们在第 2.1 节提到的那样返回 NAC。
+         */
+        return Value.getNAC();
     }
 }
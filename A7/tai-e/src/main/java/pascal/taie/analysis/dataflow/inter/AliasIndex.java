@@ -0,0 +1,123 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.FieldAccess;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+
+import java.util.Set;
+
+import static pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation.canHoldInt;
+
+/**
+ * Index of the aliasing relations between the field stores and loads of
+ * int values, which is built from the result of pointer analysis.
+ * Array accesses are handled by {@link ArrayAliasIndex}, as their aliases
+ * also depend on the index values.
+ * <p>
+ * The index first groups the stores and loads of instance fields by
+ * the abstract heap locations they may access, i.e., {@code Pair<Obj, JField>},
+ * and then connects each store to the loads of the same locations.
+ * Thus, the aliasing stores of a load (and vice versa) are obtained without
+ * scanning all stores (loads) in the program.
+ * <p>
+ * The stores of a static field all write the same location, so the
+ * analysis maintains a summary value per field instead, and the index
+ * only keeps the loads of each static field.
+ */
+class AliasIndex {
+
+    private final MultiMap<Stmt, Stmt> storeToLoads = Maps.newMultiMap();
+
+    private final MultiMap<Stmt, Stmt> loadToStores = Maps.newMultiMap();
+
+    private final MultiMap<JField, Stmt> staticLoads = Maps.newMultiMap();
+
+    AliasIndex(PointerAnalysisResult pta, Iterable<Stmt> stmts) {
+        MultiMap<Pair<Obj, JField>, Stmt> stores = Maps.newMultiMap();
+        MultiMap<Pair<Obj, JField>, Stmt> loads = Maps.newMultiMap();
+        for (Stmt stmt : stmts) {
+            if (stmt instanceof StoreField store && canHoldInt(store.getRValue())) {
+                if (!store.isStatic()) {
+                    addLocations(pta, store, store.getFieldAccess(), stores);
+                }
+            } else if (stmt instanceof LoadField load && canHoldInt(load.getLValue())) {
+                if (load.isStatic()) {
+                    staticLoads.put(load.getFieldRef().resolve(), load);
+                } else {
+                    addLocations(pta, load, load.getFieldAccess(), loads);
+                }
+            }
+        }
+        stores.forEachSet((location, locStores) -> {
+            Set<Stmt> locLoads = loads.get(location);
+            for (Stmt store : locStores) {
+                storeToLoads.putAll(store, locLoads);
+            }
+            for (Stmt load : locLoads) {
+                loadToStores.putAll(load, locStores);
+            }
+        });
+    }
+
+    private static void addLocations(
+            PointerAnalysisResult pta, Stmt stmt,
+            FieldAccess access, MultiMap<Pair<Obj, JField>, Stmt> map) {
+        JField field = access.getFieldRef().resolve();
+        Var base = ((InstanceFieldAccess) access).getBase();
+        pta.getPointsToSet(base).forEach(obj ->
+                map.put(new Pair<>(obj, field), stmt));
+    }
+
+    /**
+     * @return the loads that may read the value written by given store.
+     */
+    Set<Stmt> getLoadsOf(Stmt store) {
+        return storeToLoads.get(store);
+    }
+
+    /**
+     * @return the stores whose values may be read by given load.
+     */
+    Set<Stmt> getStoresOf(Stmt load) {
+        return loadToStores.get(load);
+    }
+
+    /**
+     * @return the loads of given static field.
+     */
+    Set<Stmt> getLoadsOf(JField staticField) {
+        return staticLoads.get(staticField);
+    }
+}
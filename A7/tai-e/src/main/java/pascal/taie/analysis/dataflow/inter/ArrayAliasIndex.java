@@ -0,0 +1,156 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Set;
+
+import static pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation.canHoldInt;
+
+/**
+ * Index of the aliasing relations between the array stores and loads
+ * of int values. Two array accesses are aliases if their bases may
+ * point to the same array object and their index values may be equal.
+ * <p>
+ * The index caches the current index value of each array access, and
+ * buckets the accesses of each array object by their constant index,
+ * so that the aliases of an access are found by hash lookups instead of
+ * comparing its index with the index of every access on the same array.
+ */
+class ArrayAliasIndex {
+
+    private final Map<Stmt, Set<Obj>> arraysOf = Maps.newMap();
+
+    /**
+     * Cached index values of the array accesses.
+     */
+    private final Map<Stmt, Value> indexes = Maps.newMap();
+
+    private final Map<Obj, Buckets> buckets = Maps.newMap();
+
+    ArrayAliasIndex(PointerAnalysisResult pta, Iterable<Stmt> stmts) {
+        for (Stmt stmt : stmts) {
+            if (stmt instanceof StoreArray store && canHoldInt(store.getRValue())) {
+                arraysOf.put(store, pta.getPointsToSet(store.getArrayAccess().getBase()));
+            } else if (stmt instanceof LoadArray load && canHoldInt(load.getLValue())) {
+                arraysOf.put(load, pta.getPointsToSet(load.getArrayAccess().getBase()));
+            }
+        }
+    }
+
+    /**
+     * @return true if given statement is an array access of int values.
+     */
+    boolean isIndexed(Stmt access) {
+        return arraysOf.containsKey(access);
+    }
+
+    /**
+     * Updates the cached index value of given array access.
+     * As the index value only goes down in the lattice, i.e.,
+     * UNDEF to constant to NAC, the aliases of the access after
+     * the update always include the ones before the update.
+     *
+     * @return true if the index value changed.
+     */
+    boolean updateIndex(Stmt access, Value index) {
+        Value old = indexes.put(access, index);
+        if (index.equals(old)) {
+            return false;
+        }
+        boolean isStore = access instanceof StoreArray;
+        for (Obj array : arraysOf.get(access)) {
+            Buckets b = buckets.computeIfAbsent(array, __ -> new Buckets());
+            if (old != null && old.isConstant()) {
+                (isStore ? b.stores : b.loads).remove(old.getConstant(), access);
+            }
+            if (index.isConstant()) {
+                (isStore ? b.stores : b.loads).put(index.getConstant(), access);
+            } else if (index.isNAC()) {
+                (isStore ? b.nacStores : b.nacLoads).add(access);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the array stores which may write the slot read by given load.
+     */
+    Set<Stmt> getStoresOf(Stmt load) {
+        return getAliases(load, true);
+    }
+
+    /**
+     * @return the array loads which may read the slot written by given store.
+     */
+    Set<Stmt> getLoadsOf(Stmt store) {
+        return getAliases(store, false);
+    }
+
+    private Set<Stmt> getAliases(Stmt access, boolean stores) {
+        Value index = indexes.get(access);
+        if (index == null || index.isUndef()) {
+            return Set.of();
+        }
+        Set<Stmt> result = Sets.newHybridSet();
+        for (Obj array : arraysOf.get(access)) {
+            Buckets b = buckets.get(array);
+            if (b == null) {
+                continue;
+            }
+            MultiMap<Integer, Stmt> constAccesses = stores ? b.stores : b.loads;
+            if (index.isConstant()) {
+                result.addAll(constAccesses.get(index.getConstant()));
+            } else {
+                result.addAll(constAccesses.values());
+            }
+            result.addAll(stores ? b.nacStores : b.nacLoads);
+        }
+        return result;
+    }
+
+    /**
+     * Accesses of an array object, bucketed by their index values.
+     */
+    private static class Buckets {
+
+        private final MultiMap<Integer, Stmt> stores = Maps.newMultiMap();
+
+        private final MultiMap<Integer, Stmt> loads = Maps.newMultiMap();
+
+        private final Set<Stmt> nacStores = Sets.newHybridSet();
+
+        private final Set<Stmt> nacLoads = Sets.newHybridSet();
+    }
+}
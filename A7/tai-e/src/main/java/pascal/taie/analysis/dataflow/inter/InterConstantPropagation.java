@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.inter;
 import pascal.taie.World;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
@@ -34,11 +35,22 @@ import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
-import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
 import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation.canHoldInt;
 
 /**
  * Implementation of interprocedural constant propagation for int values.
@@ -50,6 +62,20 @@ public class InterConstantPropagation extends
 
     private final ConstantPropagation cp;
 
+    private AliasIndex aliasIndex;
+
+    private ArrayAliasIndex arrayAliasIndex;
+
+    /**
+     * Values written by the stores of int values in heap.
+     */
+    private final Map<Stmt, Value> storeValues = Maps.newMap();
+
+    /**
+     * Meet of the values written by the stores of each static field.
+     */
+    private final Map<JField, Value> staticFieldValues = Maps.newMap();
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
@@ -59,7 +85,8 @@ public class InterConstantPropagation extends
     protected void initialize() {
         String ptaId = getOptions().getString("pta");
         PointerAnalysisResult pta = World.get().getResult(ptaId);
-        // You can do initialization work here
+        aliasIndex = new AliasIndex(pta, icfg);
+        arrayAliasIndex = new ArrayAliasIndex(pta, icfg);
     }
 
     @Override
@@ -85,37 +112,143 @@ public class InterConstantPropagation extends
 
     @Override
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
-        return false;
+        return out.copyFrom(in);
     }
 
     @Override
     protected boolean transferNonCallNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
-        return false;
+        if (stmt instanceof StoreField || stmt instanceof StoreArray) {
+            transferStore(stmt, in);
+        } else if (stmt instanceof LoadField || stmt instanceof LoadArray) {
+            Var lhs = stmt instanceof LoadField loadField ?
+                    loadField.getLValue() : ((LoadArray) stmt).getLValue();
+            if (canHoldInt(lhs)) {
+                CPFact oldOut = out.copy();
+                out.copyFrom(in);
+                out.update(lhs, loadValue(stmt, in));
+                return !out.equals(oldOut);
+            }
+        }
+        return cp.transferNode(stmt, in, out);
+    }
+
+    /**
+     * Records the value (and index) written by given store, and if they
+     * change, adds the loads which may read the value to the work list.
+     * The values of array stores are always recorded, as the loads
+     * reading them depend on the index values which are not known yet.
+     */
+    private void transferStore(Stmt store, CPFact in) {
+        Var rhs;
+        boolean changed = false;
+        Set<Stmt> loads;
+        if (store instanceof StoreArray storeArray) {
+            if (!arrayAliasIndex.isIndexed(store)) {
+                return;
+            }
+            rhs = storeArray.getRValue();
+            changed = arrayAliasIndex.updateIndex(store,
+                    in.get(storeArray.getArrayAccess().getIndex()));
+            loads = arrayAliasIndex.getLoadsOf(store);
+        } else if (((StoreField) store).isStatic()) {
+            transferStaticStore((StoreField) store, in);
+            return;
+        } else {
+            rhs = ((StoreField) store).getRValue();
+            loads = aliasIndex.getLoadsOf(store);
+            if (loads.isEmpty()) {
+                return;
+            }
+        }
+        changed |= !in.get(rhs).equals(storeValues.put(store, in.get(rhs)));
+        if (changed) {
+            loads.forEach(solver::addToWorkList);
+        }
+    }
+
+    /**
+     * Meets the value written by given store into the summary of
+     * the static field, and if the summary changes, adds the loads of
+     * the field to the work list. As the value of each store only goes
+     * down in the lattice, the summary is maintained incrementally.
+     */
+    private void transferStaticStore(StoreField store, CPFact in) {
+        Var rhs = store.getRValue();
+        if (!canHoldInt(rhs)) {
+            return;
+        }
+        JField field = store.getFieldRef().resolve();
+        Value oldValue = staticFieldValues.getOrDefault(field, Value.getUndef());
+        Value newValue = cp.meetValue(oldValue, in.get(rhs));
+        if (!newValue.equals(oldValue)) {
+            staticFieldValues.put(field, newValue);
+            aliasIndex.getLoadsOf(field).forEach(solver::addToWorkList);
+        }
+    }
+
+    /**
+     * @return meet of the values written by the stores which may be
+     * read by given load.
+     */
+    private Value loadValue(Stmt load, CPFact in) {
+        Set<Stmt> stores;
+        if (load instanceof LoadArray loadArray) {
+            arrayAliasIndex.updateIndex(load,
+                    in.get(loadArray.getArrayAccess().getIndex()));
+            stores = arrayAliasIndex.getStoresOf(load);
+        } else if (((LoadField) load).isStatic()) {
+            return staticFieldValues.getOrDefault(
+                    ((LoadField) load).getFieldRef().resolve(), Value.getUndef());
+        } else {
+            stores = aliasIndex.getStoresOf(load);
+        }
+        Value value = Value.getUndef();
+        for (Stmt store : stores) {
+            Value storeValue = storeValues.get(store);
+            if (storeValue != null) { // null if the store is not processed
+                value = cp.meetValue(value, storeValue);
+            }
+        }
+        return value;
     }
 
     @Override
     protected CPFact transferNormalEdge(NormalEdge<Stmt> edge, CPFact out) {
-        // TODO - finish me
-        return null;
+        return out.copy();
     }
 
     @Override
     protected CPFact transferCallToReturnEdge(CallToReturnEdge<Stmt> edge, CPFact out) {
-        // TODO - finish me
-        return null;
+        CPFact fact = out.copy();
+        Var def = ((Invoke) edge.getSource()).getResult();
+        if (def != null) {
+            fact.remove(def);
+        }
+        return fact;
     }
 
     @Override
     protected CPFact transferCallEdge(CallEdge<Stmt> edge, CPFact callSiteOut) {
-        // TODO - finish me
-        return null;
+        CPFact fact = new CPFact();
+        List<Var> params = edge.getCallee().getIR().getParams();
+        List<Var> args = ((Invoke) edge.getSource()).getInvokeExp().getArgs();
+        for (int i = 0; i < params.size(); i++) {
+            fact.update(params.get(i), callSiteOut.get(args.get(i)));
+        }
+        return fact;
     }
 
     @Override
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
-        // TODO - finish me
-        return null;
+        CPFact fact = new CPFact();
+        Var result = ((Invoke) edge.getCallSite()).getResult();
+        if (result != null) {
+            Value value = Value.getUndef();
+            for (Var var : edge.getReturnVars()) {
+                value = cp.meetValue(value, returnOut.get(var));
+            }
+            fact.update(result, value);
+        }
+        return fact;
     }
 }
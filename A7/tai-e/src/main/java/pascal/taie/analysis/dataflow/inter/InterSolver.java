@@ -59,10 +59,39 @@ class InterSolver<Method, Node, Fact> {
     }
 
     private void initialize() {
-        // TODO - finish me
+        for (Node node : icfg) {
+            result.setInFact(node, analysis.newInitialFact());
+            result.setOutFact(node, analysis.newInitialFact());
+        }
+        icfg.entryMethods().forEach(method -> {
+            Node entry = icfg.getEntryOf(method);
+            result.setInFact(entry, analysis.newBoundaryFact(entry));
+            result.setOutFact(entry, analysis.newBoundaryFact(entry));
+        });
     }
 
     private void doSolve() {
-        // TODO - finish me
+        workList = new SetQueue<>();
+        icfg.forEach(workList::add);
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            for (var edge : icfg.getInEdgesOf(node)) {
+                analysis.meetInto(analysis.transferEdge(
+                        edge, result.getOutFact(edge.getSource())), in);
+            }
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                workList.addAll(icfg.getSuccsOf(node));
+            }
+        }
+    }
+
+    /**
+     * Adds given node to the work list. This is used by the analysis to
+     * re-process the nodes that are affected by the changes of facts
+     * of other nodes, but are not their successors in the ICFG.
+     */
+    void addToWorkList(Node node) {
+        workList.add(node);
     }
 }
@@ -0,0 +1,140 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+
+public class AliasIndexTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/alias";
+
+    private static void analyze(String main) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", "cspta=cs:2-obj", "-a", "cg=algorithm:cspta",
+                "-a", InterConstantPropagation.ID +
+                        "=edge-refine:false;alias-aware:true;pta:cspta"});
+    }
+
+    private static ICFG<JMethod, Stmt> getICFG() {
+        return World.get().getResult(ICFGBuilder.ID);
+    }
+
+    private static PointerAnalysisResult getPTA() {
+        return World.get().getResult(CSPTA.ID);
+    }
+
+    /**
+     * @return the statement of given kind at given line.
+     */
+    private static <S extends Stmt> S getStmt(Class<S> kind, int lineNumber) {
+        return getICFG().getNodes()
+                .stream()
+                .filter(kind::isInstance)
+                .filter(stmt -> stmt.getLineNumber() == lineNumber)
+                .map(kind::cast)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testInstanceField() {
+        analyze("InstanceField");
+        AliasIndex index = new AliasIndex(getPTA(), getICFG());
+        StoreField store1 = getStmt(StoreField.class, 5);
+        LoadField load1 = getStmt(LoadField.class, 6);
+        StoreField store2 = getStmt(StoreField.class, 8);
+        LoadField load2 = getStmt(LoadField.class, 9);
+        // a1 and a2 point to different objects
+        Assert.assertEquals(Set.of(load1), index.getLoadsOf(store1));
+        Assert.assertEquals(Set.of(store1), index.getStoresOf(load1));
+        Assert.assertEquals(Set.of(load2), index.getLoadsOf(store2));
+        Assert.assertEquals(Set.of(store2), index.getStoresOf(load2));
+    }
+
+    @Test
+    public void testArrayIndexes() {
+        analyze("ArrayLoops");
+        ArrayAliasIndex index = new ArrayAliasIndex(getPTA(), getICFG());
+        // accesses in loopMix()
+        StoreArray storeI = getStmt(StoreArray.class, 20); // a[i] = 666
+        StoreArray store4 = getStmt(StoreArray.class, 22); // a[4] = 777
+        LoadArray load3 = getStmt(LoadArray.class, 23); // x = a[3]
+        LoadArray load4 = getStmt(LoadArray.class, 24); // y = a[4]
+        // accesses with UNDEF indexes have no aliases
+        Assert.assertTrue(index.getStoresOf(load3).isEmpty());
+        Assert.assertTrue(index.updateIndex(storeI, Value.getNAC()));
+        Assert.assertTrue(index.updateIndex(store4, Value.makeConstant(4)));
+        Assert.assertTrue(index.updateIndex(load3, Value.makeConstant(3)));
+        Assert.assertTrue(index.updateIndex(load4, Value.makeConstant(4)));
+        Assert.assertFalse(index.updateIndex(load4, Value.makeConstant(4)));
+        Assert.assertEquals(Set.of(storeI), index.getStoresOf(load3));
+        Assert.assertEquals(Set.of(storeI, store4), index.getStoresOf(load4));
+        Assert.assertEquals(Set.of(load3, load4), index.getLoadsOf(storeI));
+        Assert.assertEquals(Set.of(load4), index.getLoadsOf(store4));
+        // the load leaves its constant bucket when its index becomes NAC
+        Assert.assertTrue(index.updateIndex(load3, Value.getNAC()));
+        Assert.assertEquals(Set.of(storeI, store4), index.getStoresOf(load3));
+        Assert.assertEquals(Set.of(load3, load4), index.getLoadsOf(store4));
+        // the accesses in loopConst() are on another array
+        StoreArray otherStore = getStmt(StoreArray.class, 12);
+        Assert.assertTrue(index.updateIndex(otherStore, Value.getNAC()));
+        Assert.assertFalse(index.getStoresOf(load4).contains(otherStore));
+    }
+
+    @Test
+    public void testStaticFieldSummaries() {
+        analyze("StaticFieldMethods");
+        DataflowResult<Stmt, CPFact> result =
+                World.get().getResult(InterConstantPropagation.ID);
+        // the loads are reached before the stores in other methods,
+        // and they are revisited when the summaries of the fields change
+        LoadField loadF = getStmt(LoadField.class, 8); // x = f
+        LoadField loadG = getStmt(LoadField.class, 9); // y = g
+        Assert.assertEquals(Value.makeConstant(555),
+                result.getOutFact(loadF).get(loadF.getLValue()));
+        Assert.assertEquals(Value.getNAC(),
+                result.getOutFact(loadG).get(loadG.getLValue()));
+        AliasIndex index = new AliasIndex(getPTA(), getICFG());
+        Assert.assertEquals(Set.of(loadF),
+                index.getLoadsOf(loadF.getFieldRef().resolve()));
+    }
+}
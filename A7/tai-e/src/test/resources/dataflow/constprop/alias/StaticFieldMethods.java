@@ -0,0 +1,31 @@
+class StaticFieldMethods {
+
+    static int f;
+
+    static int g;
+
+    public static void main(String[] args) {
+        int x = f;
+        int y = g;
+        storeF1();
+        storeG1();
+        storeF2();
+        storeG2();
+    }
+
+    static void storeF1() {
+        f = 555;
+    }
+
+    static void storeF2() {
+        f = 555;
+    }
+
+    static void storeG1() {
+        g = 666;
+    }
+
+    static void storeG2() {
+        g = 777;
+    }
+}